@@ -0,0 +1,20 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.gradle.model;
+
+import java.util.List;
+
+/**
+ * The parameter of the {@link GradleSourceSets} model, for Gradle 4.4 and later.
+ * Gradle creates the instance so it must only have getters and setters.
+ */
+public interface GradleSourceSetsParameter {
+
+  /**
+   * Returns the bsp names of the languages to retrieve the extensions of.
+   */
+  List<String> getSupportedLanguages();
+
+  void setSupportedLanguages(List<String> supportedLanguages);
+}
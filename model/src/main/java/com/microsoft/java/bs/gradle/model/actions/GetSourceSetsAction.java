@@ -9,6 +9,7 @@ import com.microsoft.java.bs.gradle.model.GradleModuleDependency;
 import com.microsoft.java.bs.gradle.model.GradleRunTask;
 import com.microsoft.java.bs.gradle.model.GradleSourceSet;
 import com.microsoft.java.bs.gradle.model.GradleSourceSets;
+import com.microsoft.java.bs.gradle.model.GradleSourceSetsParameter;
 import com.microsoft.java.bs.gradle.model.GradleTestTask;
 import com.microsoft.java.bs.gradle.model.impl.DefaultBuildTargetDependency;
 import com.microsoft.java.bs.gradle.model.impl.DefaultGradleRunTask;
@@ -18,6 +19,7 @@ import com.microsoft.java.bs.gradle.model.impl.DefaultGradleTestTask;
 
 import org.gradle.tooling.BuildAction;
 import org.gradle.tooling.BuildController;
+import org.gradle.tooling.UnsupportedVersionException;
 import org.gradle.tooling.model.Model;
 import org.gradle.tooling.model.gradle.GradleBuild;
 
@@ -39,6 +41,46 @@ import java.util.stream.Stream;
 public class GetSourceSetsAction implements BuildAction<GradleSourceSets> {
   private static final long serialVersionUID = 1L;
 
+  private final Set<File> projectDirs;
+
+  private final List<String> supportedLanguages;
+
+  /**
+   * Retrieve the source sets of every project.
+   */
+  public GetSourceSetsAction() {
+    this(null);
+  }
+
+  /**
+   * Retrieve the source sets of only the specified projects.
+   * The returned source sets are not linked to each other as the other projects
+   * are unknown.  The caller should merge them with the source sets of the other projects
+   * and call {@link #linkSourceSets(List)}.
+   *
+   * @param projectDirs the project dirs to retrieve or null for all projects.
+   */
+  public GetSourceSetsAction(Set<File> projectDirs) {
+    this(projectDirs, null);
+  }
+
+  /**
+   * Retrieve the source sets of only the specified projects for the given languages.
+   * The languages are passed to the model builder as a parameter, which needs Gradle 4.4.
+   * Earlier versions fall back to the {@code bsp.gradle.supportedLanguages} system property,
+   * which should be passed as a build argument rather than a JVM argument so the build
+   * can use the same daemon as the other builds.
+   *
+   * @param projectDirs the project dirs to retrieve or null for all projects.
+   * @param supportedLanguages the bsp names of the languages or null to use the system
+   *     property.
+   */
+  public GetSourceSetsAction(Set<File> projectDirs, List<String> supportedLanguages) {
+    this.projectDirs = projectDirs;
+    this.supportedLanguages = supportedLanguages == null ? null
+        : new ArrayList<>(supportedLanguages);
+  }
+
   /**
    * Executes the build action and retrieves source sets from the Gradle build.
    *
@@ -48,6 +90,9 @@ public class GetSourceSetsAction implements BuildAction<GradleSourceSets> {
   public GradleSourceSets execute(BuildController buildController) {
     Collection<GradleBuild> builds = fetchIncludedBuilds(buildController);
     List<GradleSourceSet> sourceSets = fetchModels(buildController, builds);
+    if (projectDirs == null) {
+      linkSourceSets(sourceSets);
+    }
     return new DefaultGradleSourceSets(sourceSets);
   }
 
@@ -102,22 +147,30 @@ public class GetSourceSetsAction implements BuildAction<GradleSourceSets> {
     Collection<GetSourceSetAction> projectActions = builds
         .stream()
         .flatMap(build -> build.getProjects().stream())
-        .map(GetSourceSetAction::new)
+        .filter(project -> projectDirs == null
+            || projectDirs.contains(project.getProjectDirectory()))
+        .map(project -> new GetSourceSetAction(project, supportedLanguages))
         .collect(Collectors.toList());
 
     // since the model returned from Gradle TAPI is a wrapped object, here we re-construct it
     // via a copy constructor so we can treat as a DefaultGradleSourceSet and
     // populate source set dependencies.
-    List<GradleSourceSet> sourceSets = buildController.run(projectActions)
+    return buildController.run(projectActions)
         .stream()
         .flatMap(ss -> ss.getGradleSourceSets().stream())
         .map(DefaultGradleSourceSet::new)
         .collect(Collectors.toList());
+  }
 
+  /**
+   * Populate the information that links source sets to each other.
+   * This can be called again on source sets that have already been linked.
+   *
+   * @param sourceSets all the source sets of the build.
+   */
+  public static void linkSourceSets(List<GradleSourceSet> sourceSets) {
     populateInterProjectInfo(sourceSets);
     removeProjectToProjectArtifacts(sourceSets);
-
-    return sourceSets;
   }
 
   /**
@@ -129,12 +182,25 @@ public class GetSourceSetsAction implements BuildAction<GradleSourceSets> {
 
     private final Model model;
 
-    public GetSourceSetAction(Model model) {
+    private final List<String> supportedLanguages;
+
+    public GetSourceSetAction(Model model, List<String> supportedLanguages) {
       this.model = model;
+      this.supportedLanguages = supportedLanguages;
     }
 
     @Override
     public GradleSourceSets execute(BuildController controller) {
+      if (supportedLanguages != null) {
+        try {
+          // added in 4.4
+          return controller.getModel(model, GradleSourceSets.class,
+              GradleSourceSetsParameter.class,
+              parameter -> parameter.setSupportedLanguages(supportedLanguages));
+        } catch (UnsupportedVersionException e) {
+          // fall back to the system property
+        }
+      }
       return controller.getModel(model, GradleSourceSets.class);
     }
   }
@@ -179,7 +245,7 @@ public class GetSourceSetsAction implements BuildAction<GradleSourceSets> {
   // because they are not available before when using included builds.
   // Classpaths that reference other projects using jars are to be replaced with
   // source paths.
-  private void populateInterProjectInfo(List<GradleSourceSet> sourceSets) {
+  private static void populateInterProjectInfo(List<GradleSourceSet> sourceSets) {
     // map all output dirs to their source sets
     Map<File, List<File>> archivesToSourceOutput = new HashMap<>();
     Map<File, GradleSourceSet> outputsToSourceSet = new HashMap<>();
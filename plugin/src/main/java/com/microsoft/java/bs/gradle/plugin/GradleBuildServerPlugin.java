@@ -8,6 +8,7 @@ import javax.inject.Inject;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.tooling.provider.model.ToolingModelBuilderRegistry;
+import org.gradle.util.GradleVersion;
 
 /**
  * The customized Gradle plugin to get the project structure information.
@@ -26,6 +27,11 @@ public class GradleBuildServerPlugin implements Plugin<Project> {
 
   @Override
   public void apply(Project project) {
-    registry.register(new SourceSetsModelBuilder());
+    // parameterized model builders were added in 4.4
+    if (GradleVersion.current().compareTo(GradleVersion.version("4.4")) >= 0) {
+      registry.register(new ParameterizedSourceSetsModelBuilder());
+    } else {
+      registry.register(new SourceSetsModelBuilder());
+    }
   }
 }
@@ -0,0 +1,37 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.gradle.plugin;
+
+import java.util.List;
+
+import org.gradle.api.Project;
+import org.gradle.tooling.provider.model.ParameterizedToolingModelBuilder;
+
+import com.microsoft.java.bs.gradle.model.GradleSourceSetsParameter;
+import com.microsoft.java.bs.gradle.plugin.utils.SourceSetUtils;
+
+/**
+ * The model builder for Gradle source sets that takes the supported languages as a
+ * parameter, so they don't have to be passed to the daemon as a system property.
+ * Only registered on Gradle 4.4 and later as that's when parameters were added.
+ */
+public class ParameterizedSourceSetsModelBuilder extends SourceSetsModelBuilder
+    implements ParameterizedToolingModelBuilder<GradleSourceSetsParameter> {
+
+  @Override
+  public Class<GradleSourceSetsParameter> getParameterType() {
+    return GradleSourceSetsParameter.class;
+  }
+
+  @SuppressWarnings("NullableProblems")
+  @Override
+  public Object buildAll(String modelName, GradleSourceSetsParameter parameter,
+      Project project) {
+    List<String> supportedLanguages = parameter.getSupportedLanguages();
+    if (supportedLanguages == null) {
+      supportedLanguages = SourceSetUtils.getSupportedLanguages();
+    }
+    return buildAll(project, supportedLanguages);
+  }
+}
@@ -0,0 +1,222 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.gradle.plugin;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.gradle.api.Project;
+import org.gradle.api.file.CopySpec;
+import org.gradle.api.internal.file.copy.DefaultCopySpec;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.bundling.AbstractArchiveTask;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.util.GradleVersion;
+
+import com.microsoft.java.bs.gradle.model.GradleRunTask;
+import com.microsoft.java.bs.gradle.model.GradleTestTask;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleRunTask;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleTestTask;
+import com.microsoft.java.bs.gradle.plugin.dependency.ResolutionCache;
+import com.microsoft.java.bs.gradle.plugin.utils.Utils;
+
+/**
+ * The test, run and archive tasks of a project, indexed by what they are matched to
+ * a source set with.  Each index is built the first time it is needed and is then shared
+ * by all the source sets of the project.
+ */
+public class ProjectTaskIndex {
+
+  private final Project project;
+
+  private final ResolutionCache resolutionCache;
+
+  // test classes dir -> test tasks that run the classes in it.
+  private Map<File, Set<GradleTestTask>> testTasksByClassesDir;
+
+  // task classpath -> run tasks with that exact classpath.
+  private Map<List<File>, Set<GradleRunTask>> runTasksByClasspath;
+
+  // archive source path -> archive tasks that include it.
+  private Map<Object, List<AbstractArchiveTask>> archiveTasksBySourcePath;
+
+  /**
+   * constructor.
+   *
+   * @param project Gradle project
+   * @param resolutionCache resolution results of the project
+   */
+  public ProjectTaskIndex(Project project, ResolutionCache resolutionCache) {
+    this.project = project;
+    this.resolutionCache = resolutionCache;
+  }
+
+  /**
+   * find test tasks associated with the source set.
+   *
+   * @param sourceOutputDirs output dirs of the source set
+   * @return a set of GradleTestTask with info on test setup
+   */
+  public Set<GradleTestTask> getTestTasks(Set<File> sourceOutputDirs) {
+    Set<GradleTestTask> testTasks = new HashSet<>();
+    if (!sourceOutputDirs.isEmpty()) {
+      if (testTasksByClassesDir == null) {
+        testTasksByClassesDir = indexTestTasks();
+      }
+      for (File sourceOutputDir : sourceOutputDirs) {
+        testTasks.addAll(testTasksByClassesDir.getOrDefault(sourceOutputDir,
+            Collections.emptySet()));
+      }
+    }
+    return testTasks;
+  }
+
+  /**
+   * find run tasks associated with the source set.
+   *
+   * @param runtimeClasspath runtime classpath of the source set
+   * @return a set of GradleRunTask with info on run setup
+   */
+  public Set<GradleRunTask> getRunTasks(List<File> runtimeClasspath) {
+    Set<GradleRunTask> runTasks = new HashSet<>();
+    if (!runtimeClasspath.isEmpty()) {
+      if (runTasksByClasspath == null) {
+        runTasksByClasspath = indexRunTasks();
+      }
+      runTasks.addAll(runTasksByClasspath.getOrDefault(runtimeClasspath,
+          Collections.emptySet()));
+    }
+    return runTasks;
+  }
+
+  /**
+   * find the archive files that include the output of the source set.
+   *
+   * @param sourceSet the source set
+   * @return archive file -> output files of the source set
+   */
+  public Map<File, List<File>> getArchiveOutputFiles(SourceSet sourceSet) {
+    if (archiveTasksBySourcePath == null) {
+      archiveTasksBySourcePath = indexArchiveTasks();
+    }
+    Map<File, List<File>> archiveOutputFiles = new HashMap<>();
+    List<AbstractArchiveTask> archiveTasks = archiveTasksBySourcePath.get(sourceSet.getOutput());
+    if (archiveTasks != null) {
+      for (AbstractArchiveTask archiveTask : archiveTasks) {
+        File archiveFile = getArchiveFile(archiveTask);
+        List<File> sourceSetOutputs = new LinkedList<>(sourceSet.getOutput().getFiles());
+        archiveOutputFiles.put(archiveFile, sourceSetOutputs);
+      }
+    }
+    return archiveOutputFiles;
+  }
+
+  private Map<File, Set<GradleTestTask>> indexTestTasks() {
+    Map<File, Set<GradleTestTask>> index = new HashMap<>();
+    for (Test task : Utils.tasksWithType(project, Test.class)) {
+      Set<File> testClassesDirs = new HashSet<>();
+      if (GradleVersion.current().compareTo(GradleVersion.version("4.0")) >= 0) {
+        testClassesDirs.addAll(task.getTestClassesDirs().getFiles());
+      } else {
+        Object testClassesDir = Utils.invokeMethodIgnoreFail(task, "getTestClassesDir");
+        if (testClassesDir instanceof File) {
+          testClassesDirs.add((File) testClassesDir);
+        }
+      }
+      if (testClassesDirs.isEmpty()) {
+        continue;
+      }
+      String taskPath = task.getPath();
+      // test tasks usually run with their source set's runtime classpath, which is resolved.
+      List<File> classpath = new LinkedList<>(resolutionCache.getFiles(task.getClasspath()));
+      List<String> jvmOptions = task.getAllJvmArgs();
+      File workingDirectory = task.getWorkingDir();
+      Map<String, String> environmentVariables = task.getEnvironment().entrySet()
+          .stream()
+          .collect(Collectors.toMap(Map.Entry::getKey, Object::toString));
+      GradleTestTask testTask = new DefaultGradleTestTask(taskPath, classpath,
+          jvmOptions, workingDirectory, environmentVariables);
+      for (File testClassesDir : testClassesDirs) {
+        index.computeIfAbsent(testClassesDir, dir -> new HashSet<>()).add(testTask);
+      }
+    }
+    return index;
+  }
+
+  private Map<List<File>, Set<GradleRunTask>> indexRunTasks() {
+    Map<List<File>, Set<GradleRunTask>> index = new HashMap<>();
+    for (JavaExec task : Utils.tasksWithType(project, JavaExec.class)) {
+      List<File> classpath = new LinkedList<>(resolutionCache.getFiles(task.getClasspath()));
+      if (classpath.isEmpty()) {
+        continue;
+      }
+      String taskPath = task.getPath();
+      List<String> jvmOptions = task.getAllJvmArgs();
+      File workingDirectory = task.getWorkingDir();
+      Map<String, String> environmentVariables = task.getEnvironment().entrySet()
+          .stream()
+          .collect(Collectors.toMap(Map.Entry::getKey, Object::toString));
+      String mainClass = task.getMainClass().getOrNull();
+      List<String> arguments = task.getArgs();
+      GradleRunTask runTask = new DefaultGradleRunTask(taskPath, classpath,
+          jvmOptions, workingDirectory, environmentVariables, mainClass,
+          arguments);
+      index.computeIfAbsent(classpath, key -> new HashSet<>()).add(runTask);
+    }
+    return index;
+  }
+
+  private Map<Object, List<AbstractArchiveTask>> indexArchiveTasks() {
+    // find the dirs that are included in each archive
+    Map<Object, List<AbstractArchiveTask>> index = new HashMap<>();
+    for (AbstractArchiveTask archiveTask
+        : Utils.tasksWithType(project, AbstractArchiveTask.class)) {
+      for (Object sourcePath : getArchiveSourcePaths(archiveTask.getRootSpec())) {
+        index.computeIfAbsent(sourcePath, path -> new ArrayList<>()).add(archiveTask);
+      }
+    }
+    return index;
+  }
+
+  @SuppressWarnings("deprecation")
+  private File getArchiveFile(AbstractArchiveTask archiveTask) {
+    if (GradleVersion.current().compareTo(GradleVersion.version("5.1")) >= 0) {
+      return archiveTask.getArchiveFile().get().getAsFile();
+    }
+    return archiveTask.getArchivePath();
+  }
+
+  private Set<Object> getArchiveSourcePaths(CopySpec copySpec) {
+    Set<Object> sourcePaths = new HashSet<>();
+    if (copySpec instanceof DefaultCopySpec) {
+      DefaultCopySpec defaultCopySpec = (DefaultCopySpec) copySpec;
+      sourcePaths.addAll(defaultCopySpec.getSourcePaths());
+      // DefaultCopySpec#getChildren changed from Iterable to Collection
+      if (GradleVersion.current().compareTo(GradleVersion.version("6.2")) >= 0) {
+        for (CopySpec child : defaultCopySpec.getChildren()) {
+          sourcePaths.addAll(getArchiveSourcePaths(child));
+        }
+      } else {
+        Object children = Utils.invokeMethodIgnoreFail(defaultCopySpec, "getChildren");
+        if (children instanceof Iterable) {
+          for (Object child : (Iterable<?>) children) {
+            if (child instanceof CopySpec) {
+              sourcePaths.addAll(getArchiveSourcePaths((CopySpec) child));
+            }
+          }
+        }
+      }
+    }
+    return sourcePaths;
+  }
+}
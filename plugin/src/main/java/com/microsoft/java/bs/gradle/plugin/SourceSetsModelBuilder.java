@@ -19,32 +19,22 @@ import java.util.stream.Collectors;
 
 import com.microsoft.java.bs.gradle.plugin.utils.AndroidUtils;
 import com.microsoft.java.bs.gradle.plugin.utils.SourceSetUtils;
-import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
-import org.gradle.api.file.CopySpec;
-import org.gradle.api.file.FileCollection;
-import org.gradle.api.internal.file.copy.DefaultCopySpec;
-import org.gradle.api.tasks.JavaExec;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.SourceSetContainer;
-import org.gradle.api.tasks.bundling.AbstractArchiveTask;
-import org.gradle.api.tasks.testing.Test;
 import org.gradle.tooling.provider.model.ToolingModelBuilder;
 import org.gradle.util.GradleVersion;
 
 import com.microsoft.java.bs.gradle.model.GradleModuleDependency;
-import com.microsoft.java.bs.gradle.model.GradleRunTask;
 import com.microsoft.java.bs.gradle.model.GradleSourceSet;
 import com.microsoft.java.bs.gradle.model.GradleSourceSets;
-import com.microsoft.java.bs.gradle.model.GradleTestTask;
 import com.microsoft.java.bs.gradle.model.LanguageExtension;
-import com.microsoft.java.bs.gradle.model.impl.DefaultGradleRunTask;
 import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSet;
 import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSets;
-import com.microsoft.java.bs.gradle.model.impl.DefaultGradleTestTask;
 import com.microsoft.java.bs.gradle.plugin.dependency.DependencyCollector;
+import com.microsoft.java.bs.gradle.plugin.dependency.ResolutionCache;
 import com.microsoft.java.bs.gradle.plugin.utils.Utils;
 
 /**
@@ -59,13 +49,28 @@ public class SourceSetsModelBuilder implements ToolingModelBuilder {
   @SuppressWarnings("NullableProblems")
   @Override
   public Object buildAll(String modelName, Project project) {
+    return buildAll(project, SourceSetUtils.getSupportedLanguages());
+  }
+
+  /**
+   * Build the source sets of the project.
+   *
+   * @param project the project
+   * @param supportedLanguages bsp names of the languages to add extensions for
+   * @return the source sets
+   */
+  protected Object buildAll(Project project, List<String> supportedLanguages) {
     // mapping Gradle source set to our customized model.
     List<GradleSourceSet> sourceSets = new ArrayList<>();
+    // resolution results and tasks are shared by all the source sets of the project.
+    ResolutionCache resolutionCache = new ResolutionCache(project);
+    ProjectTaskIndex taskIndex = new ProjectTaskIndex(project, resolutionCache);
 
     // Fetch source sets depending on the project type
-    sourceSets.addAll(AndroidUtils.getBuildVariantsAsGradleSourceSets(project));
+    sourceSets.addAll(AndroidUtils.getBuildVariantsAsGradleSourceSets(project, taskIndex,
+        resolutionCache, supportedLanguages));
     sourceSets.addAll(getSourceSetContainer(project).stream()
-        .map(ss -> getSourceSet(project, ss))
+        .map(ss -> getSourceSet(project, taskIndex, resolutionCache, ss, supportedLanguages))
         .collect(Collectors.toList()));
 
     excludeSourceDirsFromModules(sourceSets);
@@ -73,7 +78,8 @@ public class SourceSetsModelBuilder implements ToolingModelBuilder {
     return new DefaultGradleSourceSets(sourceSets);
   }
 
-  private DefaultGradleSourceSet getSourceSet(Project project, SourceSet sourceSet) {
+  private DefaultGradleSourceSet getSourceSet(Project project, ProjectTaskIndex taskIndex,
+      ResolutionCache resolutionCache, SourceSet sourceSet, List<String> supportedLanguages) {
     DefaultGradleSourceSet gradleSourceSet = new DefaultGradleSourceSet();
     // dependencies are populated by the GradleSourceSetsAction.  Make sure not null.
     gradleSourceSet.setBuildTargetDependencies(new HashSet<>());
@@ -93,7 +99,8 @@ public class SourceSetsModelBuilder implements ToolingModelBuilder {
     gradleSourceSet.setTaskNames(taskNames);
 
     // setup module dependencies before language support check.
-    gradleSourceSet.setModuleDependencies(getModuleDependencies(project, sourceSet));
+    gradleSourceSet.setModuleDependencies(getModuleDependencies(project, resolutionCache,
+        sourceSet));
 
     // specific languages
     Map<String, LanguageExtension> extensions = new HashMap<>();
@@ -101,7 +108,7 @@ public class SourceSetsModelBuilder implements ToolingModelBuilder {
     Set<File> generatedSrcDirs = new HashSet<>();
     Set<File> sourceOutputDirs = new HashSet<>();
     for (LanguageModelBuilder languageModelBuilder
-        : SourceSetUtils.getSupportedLanguageModelBuilders()) {
+        : SourceSetUtils.getSupportedLanguageModelBuilders(supportedLanguages)) {
       LanguageExtension extension = languageModelBuilder.getExtensionFor(project, sourceSet,
           gradleSourceSet.getModuleDependencies());
       if (extension != null) {
@@ -124,19 +131,11 @@ public class SourceSetsModelBuilder implements ToolingModelBuilder {
     gradleSourceSet.setSourceOutputDirs(sourceOutputDirs);
 
     // classpaths
-    List<File> compileClasspath = new LinkedList<>();
-    try {
-      compileClasspath.addAll(sourceSet.getCompileClasspath().getFiles());
-    } catch (GradleException e) {
-      // ignore
-    }
+    List<File> compileClasspath = new LinkedList<>(
+        resolutionCache.getFiles(sourceSet.getCompileClasspath()));
     gradleSourceSet.setCompileClasspath(compileClasspath);
-    List<File> runtimeClasspath = new LinkedList<>();
-    try {
-      runtimeClasspath.addAll(sourceSet.getRuntimeClasspath().getFiles());
-    } catch (GradleException e) {
-      // ignore
-    }
+    List<File> runtimeClasspath = new LinkedList<>(
+        resolutionCache.getFiles(sourceSet.getRuntimeClasspath()));
     gradleSourceSet.setRuntimeClasspath(runtimeClasspath);
 
     // resource
@@ -152,139 +151,20 @@ public class SourceSetsModelBuilder implements ToolingModelBuilder {
     gradleSourceSet.setResourceOutputDirs(resourceOutputDirs);
 
     // archive output dirs
-    Map<File, List<File>> archiveOutputFiles = getArchiveOutputFiles(project, sourceSet);
+    Map<File, List<File>> archiveOutputFiles = taskIndex.getArchiveOutputFiles(sourceSet);
     gradleSourceSet.setArchiveOutputFiles(archiveOutputFiles);
 
     // tests
-    gradleSourceSet.setTestTasks(getTestTasks(project, sourceOutputDirs));
+    gradleSourceSet.setTestTasks(taskIndex.getTestTasks(sourceOutputDirs));
 
     // run tasks
-    gradleSourceSet.setRunTasks(getRunTasks(project, runtimeClasspath));
+    gradleSourceSet.setRunTasks(taskIndex.getRunTasks(runtimeClasspath));
 
     return gradleSourceSet;
   }
 
-  /**
-   * find test tasks associated with the source set.
-   *
-   * @param project Gradle project
-   * @param sourceOutputDirs output dirs of the source set
-   * @return a set of GradleTestTask with info on test setup
-   */
-  public static Set<GradleTestTask> getTestTasks(Project project, Set<File> sourceOutputDirs) {
-    Set<GradleTestTask> testTasks = new HashSet<>();
-    if (!sourceOutputDirs.isEmpty()) {
-      Set<Test> tasks = Utils.tasksWithType(project, Test.class);
-      for (Test task : tasks) {
-        boolean isForThisSourceSet = false;
-        if (GradleVersion.current().compareTo(GradleVersion.version("4.0")) >= 0) {
-          FileCollection files = task.getTestClassesDirs();
-          for (File sourceOutputDir : sourceOutputDirs) {
-            if (files.contains(sourceOutputDir)) {
-              isForThisSourceSet = true;
-              break;
-            }
-          }
-        } else {
-          Object testClassesDir = Utils.invokeMethodIgnoreFail(task, "getTestClassesDir");
-          if (testClassesDir != null) {
-            for (File sourceOutputDir : sourceOutputDirs) {
-              if (sourceOutputDir.equals(testClassesDir)) {
-                isForThisSourceSet = true;
-                break;
-              }
-            }
-          }
-        }
-        if (isForThisSourceSet) {
-          String taskPath = task.getPath();
-          List<File> classpath = new LinkedList<>();
-          try {
-            classpath.addAll(task.getClasspath().getFiles());
-          } catch (GradleException e) {
-            // ignore
-          }
-          List<String> jvmOptions = task.getAllJvmArgs();
-          File workingDirectory = task.getWorkingDir();
-          Map<String, String> environmentVariables = task.getEnvironment().entrySet()
-              .stream()
-              .collect(Collectors.toMap(Map.Entry::getKey, Object::toString));
-          GradleTestTask testTask = new DefaultGradleTestTask(taskPath, classpath,
-              jvmOptions, workingDirectory, environmentVariables);
-          testTasks.add(testTask);
-        }
-      }
-    }
-    return testTasks;
-  }
-
-  /**
-   * find run tasks associated with the source set.
-   *
-   * @param project Gradle project
-   * @param runtimeClasspath runtime classpath of the source set
-   * @return a set of GradleRunTask with info on run setup
-   */
-  public static Set<GradleRunTask> getRunTasks(Project project, List<File> runtimeClasspath) {
-    Set<GradleRunTask> runTasks = new HashSet<>();
-    if (!runtimeClasspath.isEmpty()) {
-      Set<JavaExec> tasks = Utils.tasksWithType(project, JavaExec.class);
-      for (JavaExec task : tasks) {
-        
-        List<File> classpath = new LinkedList<>();
-        try {
-          classpath.addAll(task.getClasspath().getFiles());
-        } catch (GradleException e) {
-          // ignore
-        }
-        boolean isForThisSourceSet = classpath.equals(runtimeClasspath);
-        if (isForThisSourceSet) {
-          String taskPath = task.getPath();
-          List<String> jvmOptions = task.getAllJvmArgs();
-          File workingDirectory = task.getWorkingDir();
-          Map<String, String> environmentVariables = task.getEnvironment().entrySet()
-              .stream()
-              .collect(Collectors.toMap(Map.Entry::getKey, Object::toString));
-          String mainClass = task.getMainClass().getOrNull();
-          List<String> arguments = task.getArgs();
-          GradleRunTask runTask = new DefaultGradleRunTask(taskPath, classpath,
-              jvmOptions, workingDirectory, environmentVariables, mainClass,
-              arguments);
-          runTasks.add(runTask);
-        }
-      }
-    }
-    return runTasks;
-  }
-
-  /**
-   * get all archive tasks for this project and maintain the archive file
-   * to source set mapping.
-   */
-  @SuppressWarnings("deprecation")
-  private Map<File, List<File>> getArchiveOutputFiles(Project project, SourceSet sourceSet) {
-    // get all archive tasks for this project and find the dirs that are included in the archive
-    Set<AbstractArchiveTask> archiveTasks = Utils.tasksWithType(project, AbstractArchiveTask.class);
-    Map<File, List<File>> archiveOutputFiles = new HashMap<>();
-    for (AbstractArchiveTask archiveTask : archiveTasks) {
-      Set<Object> archiveSourcePaths = getArchiveSourcePaths(archiveTask.getRootSpec());
-      for (Object sourcePath : archiveSourcePaths) {
-        if (sourceSet.getOutput().equals(sourcePath)) {
-          File archiveFile;
-          if (GradleVersion.current().compareTo(GradleVersion.version("5.1")) >= 0) {
-            archiveFile = archiveTask.getArchiveFile().get().getAsFile();
-          } else {
-            archiveFile = archiveTask.getArchivePath();
-          }
-          List<File> sourceSetOutputs = new LinkedList<>(sourceSet.getOutput().getFiles());
-          archiveOutputFiles.put(archiveFile, sourceSetOutputs);
-        }
-      }
-    }
-    return archiveOutputFiles;
-  }
-
-  private Set<GradleModuleDependency> getModuleDependencies(Project project, SourceSet sourceSet) {
+  private Set<GradleModuleDependency> getModuleDependencies(Project project,
+      ResolutionCache resolutionCache, SourceSet sourceSet) {
     Set<Configuration> configurations = new HashSet<>();
     DependencyHandler dependencyHandler = project.getDependencies();
     for (String name : getClasspathConfigurationNames(sourceSet)) {
@@ -292,13 +172,13 @@ public class SourceSetsModelBuilder implements ToolingModelBuilder {
       configurations.add(configuration);
     }
     Set<GradleModuleDependency> moduleDependencies = DependencyCollector.getModuleDependencies(
-        dependencyHandler, configurations);
+        dependencyHandler, resolutionCache, configurations);
 
     // some jars are internal to Gradle
     // e.g. DependencyFactory#(gradleApi, gradleTestKit,  localGroovy)
     // do best effort to download the sources from maven
     return DependencyCollector.downloadGroovySources(project.getConfigurations(),
-        project.getRepositories(), dependencyHandler, moduleDependencies);
+        project.getRepositories(), dependencyHandler, resolutionCache, moduleDependencies);
   }
 
   // remove source set dirs from modules
@@ -364,30 +244,6 @@ public class SourceSetsModelBuilder implements ToolingModelBuilder {
     return new LinkedList<>();
   }
 
-  private Set<Object> getArchiveSourcePaths(CopySpec copySpec) {
-    Set<Object> sourcePaths = new HashSet<>();
-    if (copySpec instanceof DefaultCopySpec) {
-      DefaultCopySpec defaultCopySpec = (DefaultCopySpec) copySpec;
-      sourcePaths.addAll(defaultCopySpec.getSourcePaths());
-      // DefaultCopySpec#getChildren changed from Iterable to Collection
-      if (GradleVersion.current().compareTo(GradleVersion.version("6.2")) >= 0) {
-        for (CopySpec child : defaultCopySpec.getChildren()) {
-          sourcePaths.addAll(getArchiveSourcePaths(child));
-        }
-      } else {
-        Object children = Utils.invokeMethodIgnoreFail(defaultCopySpec, "getChildren");
-        if (children instanceof Iterable) {
-          for (Object child : (Iterable<?>) children) {
-            if (child instanceof CopySpec) {
-              sourcePaths.addAll(getArchiveSourcePaths((CopySpec) child));
-            }
-          }
-        }
-      }
-    }
-    return sourcePaths;
-  }
-
   private Set<String> getClasspathConfigurationNames(SourceSet sourceSet) {
     Set<String> configurationNames = new HashSet<>();
     configurationNames.add(sourceSet.getCompileClasspathConfigurationName());
@@ -0,0 +1,56 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.gradle.plugin.dependency;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+
+/**
+ * A module component and the repositories its sources and javadoc are looked for in,
+ * as projects with different repositories can find different sources and javadoc.
+ */
+final class ComponentKey {
+
+  private final ComponentIdentifier componentId;
+
+  private final List<String> repositories;
+
+  /**
+   * constructor.
+   *
+   * @param componentId the module component id
+   * @param repositories descriptions of the repositories, in the order they are searched
+   */
+  ComponentKey(ComponentIdentifier componentId, List<String> repositories) {
+    this.componentId = componentId;
+    this.repositories = repositories;
+  }
+
+  ComponentIdentifier getComponentId() {
+    return componentId;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(componentId, repositories);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    ComponentKey other = (ComponentKey) obj;
+    return Objects.equals(componentId, other.componentId)
+        && Objects.equals(repositories, other.repositories);
+  }
+}
@@ -7,23 +7,32 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.ResolvedConfiguration;
 import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
 import org.gradle.api.artifacts.query.ArtifactResolutionQuery;
@@ -60,19 +69,39 @@ public class DependencyCollector {
     artifactTypes.add(SourcesArtifact.class);
   }
 
+  /**
+   * get the sources and javadoc artifacts that have been found or are being resolved.
+   * On Gradle 6.1 and later these are shared by all the projects in the build.
+   *
+   * @param project Gradle project
+   * @return module component and repositories -> its sources and javadoc artifacts
+   */
+  static Map<ComponentKey, CompletableFuture<List<Artifact>>> getSourcesAndJavadocCache(
+      Project project) {
+    if (GradleVersion.current().compareTo(GradleVersion.version("6.1")) >= 0) {
+      return SourcesAndJavadocService.getArtifacts(project.getGradle());
+    }
+    return new ConcurrentHashMap<>();
+  }
+
   /**
    * Resolve and collect dependencies from a collection of {@link Configuration}.
    */
   public static Set<GradleModuleDependency> getModuleDependencies(DependencyHandler dependencies,
-      Collection<Configuration> configurations) {
+      ResolutionCache resolutionCache, Collection<Configuration> configurations) {
     if (GradleVersion.current().compareTo(GradleVersion.version("4.0")) < 0) {
       try {
         List<ResolvedConfiguration> configs = configurations.stream()
             .map(Configuration::getResolvedConfiguration)
             .collect(Collectors.toList());
-        Stream<DefaultGradleModuleDependency> moduleDependencies = configs.stream()
+        List<ResolvedArtifact> resolvedArtifacts = configs.stream()
             .flatMap(config -> config.getResolvedArtifacts().stream())
-            .map(artifact -> getArtifact(dependencies, artifact.getId(), artifact.getFile()));
+            .collect(Collectors.toList());
+        resolveSourcesAndJavadoc(dependencies, resolutionCache, resolvedArtifacts.stream()
+            .map(ResolvedArtifact::getId));
+        Stream<DefaultGradleModuleDependency> moduleDependencies = resolvedArtifacts.stream()
+            .map(artifact -> getArtifact(resolutionCache, artifact.getId(),
+                artifact.getFile()));
 
         // add as individual files for direct dependencies on jars
         Stream<DefaultGradleModuleDependency> directDependencies = configs.stream()
@@ -86,16 +115,112 @@ public class DependencyCollector {
         return new HashSet<>();
       }
     } else {
-      return configurations.stream()
-        .filter(Configuration::isCanBeResolved)
-        .flatMap(configuration -> getConfigurationArtifacts(configuration).stream())
-        .map(artifactResult -> getArtifact(dependencies, artifactResult.getId(),
+      List<ResolvedArtifactResult> artifactResults = configurations.stream()
+          .filter(Configuration::isCanBeResolved)
+          .flatMap(configuration -> resolutionCache.getArtifacts(configuration).stream())
+          .collect(Collectors.toList());
+      resolveSourcesAndJavadoc(dependencies, resolutionCache, artifactResults.stream()
+          .map(ResolvedArtifactResult::getId));
+      return artifactResults.stream()
+        .map(artifactResult -> getArtifact(resolutionCache, artifactResult.getId(),
             artifactResult.getFile()))
         .filter(Objects::nonNull)
         .collect(Collectors.toSet());
     }
   }
 
+  /**
+   * Resolve the sources and javadoc of all the module components that haven't been resolved
+   * yet in a single query, rather than a query per component.
+   * The results, including components with no sources or javadoc, are shared with the
+   * projects that have the same repositories.  Components another of those projects is
+   * resolving are waited for rather than queried again.
+   *
+   * @param dependencies Gradle DependencyHandler
+   * @param resolutionCache resolution results of the project
+   * @param artifactIds ids of the resolved artifacts
+   */
+  private static void resolveSourcesAndJavadoc(DependencyHandler dependencies,
+      ResolutionCache resolutionCache, Stream<ComponentArtifactIdentifier> artifactIds) {
+    Map<ComponentKey, CompletableFuture<List<Artifact>>> shared =
+        resolutionCache.getSharedSourcesAndJavadoc();
+    Set<ComponentIdentifier> componentIds = artifactIds
+        .filter(id -> id instanceof ModuleComponentArtifactIdentifier)
+        .map(ComponentArtifactIdentifier::getComponentIdentifier)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    Map<ComponentKey, CompletableFuture<List<Artifact>>> claimed = new LinkedHashMap<>();
+    List<CompletableFuture<List<Artifact>>> others = new ArrayList<>();
+    for (ComponentIdentifier componentId : componentIds) {
+      ComponentKey key = resolutionCache.getSourcesAndJavadocKey(componentId);
+      CompletableFuture<List<Artifact>> future = new CompletableFuture<>();
+      CompletableFuture<List<Artifact>> existing = shared.putIfAbsent(key, future);
+      if (existing == null) {
+        claimed.put(key, future);
+      } else {
+        others.add(existing);
+      }
+    }
+    if (!claimed.isEmpty()) {
+      Map<ComponentIdentifier, List<Artifact>> resolved = null;
+      try {
+        resolved = querySourcesAndJavadoc(dependencies, claimed.keySet().stream()
+            .map(ComponentKey::getComponentId)
+            .collect(Collectors.toCollection(LinkedHashSet::new)));
+      } finally {
+        // always complete the claimed components so other projects don't wait forever,
+        // but forget them if the query failed so they are queried again.
+        for (Map.Entry<ComponentKey, CompletableFuture<List<Artifact>>> entry
+            : claimed.entrySet()) {
+          List<Artifact> artifacts = null;
+          if (resolved == null) {
+            shared.remove(entry.getKey(), entry.getValue());
+          } else {
+            artifacts = resolved.get(entry.getKey().getComponentId());
+          }
+          entry.getValue().complete(artifacts == null ? Collections.emptyList() : artifacts);
+        }
+      }
+    }
+    // wait for the components other projects are resolving, so their results can be used.
+    for (CompletableFuture<List<Artifact>> future : others) {
+      future.join();
+    }
+  }
+
+  private static Map<ComponentIdentifier, List<Artifact>> querySourcesAndJavadoc(
+      DependencyHandler dependencies, Set<ComponentIdentifier> componentIds) {
+    ArtifactResolutionQuery query = dependencies
+        .createArtifactResolutionQuery()
+        .forComponents(componentIds);
+
+    if (GradleVersion.current().compareTo(GradleVersion.version("4.5")) >= 0) {
+      @SuppressWarnings({"UnstableApiUsage"})
+      ArtifactResolutionQuery withArtifacts = query.withArtifacts(JvmLibrary.class, artifactTypes);
+      query = withArtifacts;
+    } else {
+      @SuppressWarnings({"UnstableApiUsage", "unchecked"})
+      ArtifactResolutionQuery withArtifacts = query.withArtifacts(JvmLibrary.class,
+          JavadocArtifact.class, SourcesArtifact.class);
+      query = withArtifacts;
+    }
+
+    ArtifactResolutionResult resolutionResult = query.execute();
+    Map<ComponentIdentifier, List<Artifact>> resolved = new HashMap<>();
+    for (ComponentArtifactsResult component : resolutionResult.getResolvedComponents()) {
+      List<Artifact> artifacts = new ArrayList<>();
+      File sourceJar = getNonClassesArtifact(component, SourcesArtifact.class);
+      if (sourceJar != null) {
+        artifacts.add(new DefaultArtifact(sourceJar.toPath().toUri(), "sources"));
+      }
+      File javaDocJar = getNonClassesArtifact(component, JavadocArtifact.class);
+      if (javaDocJar != null) {
+        artifacts.add(new DefaultArtifact(javaDocJar.toPath().toUri(), "javadoc"));
+      }
+      resolved.put(component.getId(), artifacts);
+    }
+    return resolved;
+  }
+
   /**
    * Create Dependency for each input dependency based on extracted jar name and version
    * @param dependencyHandler Gradle DependencyHandler
@@ -151,12 +276,14 @@ public class DependencyCollector {
    * @param configurationContainer configuration container
    * @param repositoryHandler project repositoryHandler
    * @param dependencyHandler project dependencyHandler
+   * @param resolutionCache resolution results of the project
    * @param moduleDependencies set of dependencies that potentially have missing Gradle build-in sources
    * @return full set of dependencies with the sources if download is required/possible
    */
   public static Set<GradleModuleDependency> downloadGroovySources(
       ConfigurationContainer configurationContainer, RepositoryHandler repositoryHandler,
-      DependencyHandler dependencyHandler, Set<GradleModuleDependency> moduleDependencies) {
+      DependencyHandler dependencyHandler, ResolutionCache resolutionCache,
+      Set<GradleModuleDependency> moduleDependencies) {
 
     // check if any are missing source artifacts and if they are built-in Gradle artifacts
     Set<GradleModuleDependency> missingSources = moduleDependencies.stream()
@@ -183,7 +310,7 @@ public class DependencyCollector {
     repositoryHandler.add(repositoryHandler.mavenCentral());
 
     Set<GradleModuleDependency> missingDeps = getModuleDependencies(dependencyHandler,
-        Collections.singletonList(detachedConfig));
+        resolutionCache, Collections.singletonList(detachedConfig));
 
     // merge existing and downloaded dependencies - only jar name will be the same.
     return moduleDependencies.stream()
@@ -251,10 +378,10 @@ public class DependencyCollector {
     }
   }
 
-  private static DefaultGradleModuleDependency getArtifact(DependencyHandler dependencies,
+  private static DefaultGradleModuleDependency getArtifact(ResolutionCache resolutionCache,
       ComponentArtifactIdentifier id, File artifactFile) {
     if (id instanceof ModuleComponentArtifactIdentifier) {
-      return getModuleArtifactDependency(dependencies, (ModuleComponentArtifactIdentifier) id,
+      return getModuleArtifactDependency(resolutionCache, (ModuleComponentArtifactIdentifier) id,
         artifactFile);
     }
     if (id instanceof OpaqueComponentArtifactIdentifier) {
@@ -266,52 +393,16 @@ public class DependencyCollector {
     return null;
   }
 
-  private static List<ResolvedArtifactResult> getConfigurationArtifacts(Configuration config) {
-    return new ArrayList<>(config.getIncoming()
-        .artifactView(viewConfiguration -> {
-          viewConfiguration.lenient(true);
-          viewConfiguration.componentFilter(Specs.satisfyAll());
-        })
-        .getArtifacts() // get ArtifactCollection from ArtifactView.
-        .getArtifacts());
-  }
-
   private static DefaultGradleModuleDependency getModuleArtifactDependency(
-      DependencyHandler dependencies, ModuleComponentArtifactIdentifier artifactIdentifier,
-      File resolvedArtifactFile) {
-
-    ArtifactResolutionQuery query = dependencies
-        .createArtifactResolutionQuery()
-        .forComponents(artifactIdentifier.getComponentIdentifier());
-
-    if (GradleVersion.current().compareTo(GradleVersion.version("4.5")) >= 0) {
-      @SuppressWarnings({"UnstableApiUsage"})
-      ArtifactResolutionQuery withArtifacts = query.withArtifacts(JvmLibrary.class, artifactTypes);
-      query = withArtifacts;
-    } else {
-      @SuppressWarnings({"UnstableApiUsage", "unchecked"})
-      ArtifactResolutionQuery withArtifacts = query.withArtifacts(JvmLibrary.class,
-          JavadocArtifact.class, SourcesArtifact.class);
-      query = withArtifacts;
-    }
-
-    ArtifactResolutionResult resolutionResult = query.execute();
+      ResolutionCache resolutionCache,
+      ModuleComponentArtifactIdentifier artifactIdentifier, File resolvedArtifactFile) {
 
     List<Artifact> artifacts = new LinkedList<>();
     if (resolvedArtifactFile != null) {
       artifacts.add(new DefaultArtifact(resolvedArtifactFile.toPath().toUri(), null));
     }
-
-    Set<ComponentArtifactsResult> resolvedComponents = resolutionResult.getResolvedComponents();
-    File sourceJar = getNonClassesArtifact(resolvedComponents, SourcesArtifact.class);
-    if (sourceJar != null) {
-      artifacts.add(new DefaultArtifact(sourceJar.toPath().toUri(), "sources"));
-    }
-
-    File javaDocJar = getNonClassesArtifact(resolvedComponents, JavadocArtifact.class);
-    if (javaDocJar != null) {
-      artifacts.add(new DefaultArtifact(javaDocJar.toPath().toUri(), "javadoc"));
-    }
+    artifacts.addAll(resolutionCache.getSourcesAndJavadoc(
+        artifactIdentifier.getComponentIdentifier()));
 
     return new DefaultGradleModuleDependency(
         artifactIdentifier.getComponentIdentifier().getGroup(),
@@ -321,15 +412,13 @@ public class DependencyCollector {
     );
   }
 
-  private static File getNonClassesArtifact(Set<ComponentArtifactsResult> resolvedComponents,
+  private static File getNonClassesArtifact(ComponentArtifactsResult component,
       Class<? extends org.gradle.api.component.Artifact> artifactClass) {
-    for (ComponentArtifactsResult component : resolvedComponents) {
-      Set<ArtifactResult> artifacts = component.getArtifacts(artifactClass);
-      for (ArtifactResult artifact : artifacts) {
-        if (artifact instanceof ResolvedArtifactResult) {
-          // TODO: only return the first found result, might be wrong!
-          return ((ResolvedArtifactResult) artifact).getFile();
-        }
+    Set<ArtifactResult> artifacts = component.getArtifacts(artifactClass);
+    for (ArtifactResult artifact : artifacts) {
+      if (artifact instanceof ResolvedArtifactResult) {
+        // TODO: only return the first found result, might be wrong!
+        return ((ResolvedArtifactResult) artifact).getFile();
       }
     }
     return null;
@@ -0,0 +1,181 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.gradle.plugin.dependency;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.repositories.ArtifactRepository;
+import org.gradle.api.artifacts.repositories.FlatDirectoryArtifactRepository;
+import org.gradle.api.artifacts.repositories.IvyArtifactRepository;
+import org.gradle.api.artifacts.repositories.MavenArtifactRepository;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.specs.Specs;
+import org.gradle.util.GradleVersion;
+
+import com.microsoft.java.bs.gradle.model.Artifact;
+
+/**
+ * The dependency resolution results of a project, so the classpaths, module dependencies
+ * and task classpaths that share a configuration or file collection only resolve it once.
+ * A project's model is built on a single thread so this isn't thread safe.
+ */
+public class ResolutionCache {
+
+  private final Map<ComponentKey, CompletableFuture<List<Artifact>>> sourcesAndJavadoc;
+
+  private final List<String> repositories;
+
+  // configurations and file collections are matched by identity as they don't override equals.
+  private final Map<Configuration, List<ResolvedArtifactResult>> configurationArtifacts =
+      new IdentityHashMap<>();
+
+  private final Map<FileCollection, List<File>> files = new IdentityHashMap<>();
+
+  /**
+   * constructor.
+   *
+   * @param project Gradle project
+   */
+  public ResolutionCache(Project project) {
+    this.sourcesAndJavadoc = DependencyCollector.getSourcesAndJavadocCache(project);
+    this.repositories = getRepositories(project);
+  }
+
+  /**
+   * describe the repositories of the project by where they are, so projects that declare
+   * the same repositories share their sources and javadoc.
+   */
+  private static List<String> getRepositories(Project project) {
+    List<String> repositories = new ArrayList<>();
+    for (ArtifactRepository repository : project.getRepositories()) {
+      if (repository instanceof MavenArtifactRepository) {
+        repositories.add("maven:" + ((MavenArtifactRepository) repository).getUrl());
+      } else if (repository instanceof IvyArtifactRepository) {
+        repositories.add("ivy:" + ((IvyArtifactRepository) repository).getUrl());
+      } else if (repository instanceof FlatDirectoryArtifactRepository) {
+        repositories.add("flatDir:"
+            + ((FlatDirectoryArtifactRepository) repository).getDirs());
+      } else {
+        repositories.add(repository.getName());
+      }
+    }
+    return Collections.unmodifiableList(repositories);
+  }
+
+  /**
+   * get the sources and javadoc artifacts that have been resolved or are being resolved,
+   * which may be shared with other projects.
+   *
+   * @return module component and repositories -> its sources and javadoc artifacts
+   */
+  Map<ComponentKey, CompletableFuture<List<Artifact>>> getSharedSourcesAndJavadoc() {
+    return sourcesAndJavadoc;
+  }
+
+  /**
+   * get the key of a component's sources and javadoc from this project's repositories.
+   *
+   * @param componentId the module component id
+   * @return the key
+   */
+  ComponentKey getSourcesAndJavadocKey(ComponentIdentifier componentId) {
+    return new ComponentKey(componentId, repositories);
+  }
+
+  /**
+   * get the sources and javadoc artifacts of a component that has been resolved.
+   *
+   * @param componentId the module component id
+   * @return its sources and javadoc artifacts, or an empty list if none were found
+   */
+  List<Artifact> getSourcesAndJavadoc(ComponentIdentifier componentId) {
+    CompletableFuture<List<Artifact>> artifacts =
+        sourcesAndJavadoc.get(getSourcesAndJavadocKey(componentId));
+    return artifacts != null && artifacts.isDone() ? artifacts.join() : Collections.emptyList();
+  }
+
+  /**
+   * get the artifacts of a configuration, ignoring any that can't be resolved.
+   * Only used on Gradle 4.0 and later as it needs artifact views.
+   *
+   * @param configuration the configuration to resolve
+   * @return the resolved artifacts in classpath order
+   */
+  List<ResolvedArtifactResult> getArtifacts(Configuration configuration) {
+    return configurationArtifacts.computeIfAbsent(configuration, config ->
+        Collections.unmodifiableList(new ArrayList<>(config.getIncoming()
+            .artifactView(viewConfiguration -> {
+              viewConfiguration.lenient(true);
+              viewConfiguration.componentFilter(Specs.satisfyAll());
+            })
+            .getArtifacts() // get ArtifactCollection from ArtifactView.
+            .getArtifacts())));
+  }
+
+  /**
+   * get the files of a file collection, e.g. a source set or task classpath.
+   *
+   * @param fileCollection the files to resolve
+   * @return the files, or an empty list if they can't be resolved
+   */
+  public List<File> getFiles(FileCollection fileCollection) {
+    List<File> result = files.get(fileCollection);
+    if (result == null) {
+      result = Collections.unmodifiableList(new ArrayList<>(resolveFiles(fileCollection)));
+      files.put(fileCollection, result);
+    }
+    return result;
+  }
+
+  /**
+   * A configuration's files are taken from its artifacts, which the module dependencies
+   * are built from too.  A file collection made of other file collections, such as a source
+   * set's runtime classpath of its output and runtime classpath configuration, or a task
+   * classpath of a source set's classpath, is put together from the files of each part
+   * so the parts are only resolved once.
+   */
+  private Collection<File> resolveFiles(FileCollection fileCollection) {
+    if (GradleVersion.current().compareTo(GradleVersion.version("4.0")) >= 0) {
+      if (fileCollection instanceof Configuration
+          && ((Configuration) fileCollection).isCanBeResolved()) {
+        List<File> result = new ArrayList<>();
+        for (ResolvedArtifactResult artifact : getArtifacts((Configuration) fileCollection)) {
+          result.add(artifact.getFile());
+        }
+        return result;
+      }
+      if (fileCollection instanceof ConfigurableFileCollection) {
+        Set<Object> parts = ((ConfigurableFileCollection) fileCollection).getFrom();
+        if (!parts.isEmpty() && parts.stream().allMatch(FileCollection.class::isInstance)) {
+          // a file collection's files are a set, in the order of its parts.
+          Set<File> result = new LinkedHashSet<>();
+          for (Object part : parts) {
+            result.addAll(getFiles((FileCollection) part));
+          }
+          return result;
+        }
+      }
+    }
+    try {
+      return fileCollection.getFiles();
+    } catch (GradleException e) {
+      return Collections.emptyList();
+    }
+  }
+}
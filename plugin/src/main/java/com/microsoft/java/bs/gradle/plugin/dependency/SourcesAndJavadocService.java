@@ -0,0 +1,46 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.gradle.plugin.dependency;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import com.microsoft.java.bs.gradle.model.Artifact;
+
+/**
+ * Remembers the sources and javadoc artifacts of module components for the whole build,
+ * so a component used by many projects with the same repositories is only resolved once,
+ * including when it has no sources or javadoc.
+ * A component is held while a project resolves it, so other projects wait for the result.
+ * Shared build services were added in Gradle 6.1 so this must not be loaded before then.
+ */
+public abstract class SourcesAndJavadocService
+    implements BuildService<BuildServiceParameters.None> {
+
+  private static final String NAME = "bspSourcesAndJavadoc";
+
+  // projects can be built in parallel so this is shared between threads.
+  private final Map<ComponentKey, CompletableFuture<List<Artifact>>> artifacts =
+      new ConcurrentHashMap<>();
+
+  /**
+   * get the sources and javadoc artifacts found or being resolved in this build.
+   *
+   * @param gradle the Gradle build
+   * @return module component and repositories -> its sources and javadoc artifacts
+   */
+  static Map<ComponentKey, CompletableFuture<List<Artifact>>> getArtifacts(
+      Gradle gradle) {
+    Provider<SourcesAndJavadocService> service = gradle.getSharedServices()
+        .registerIfAbsent(NAME, SourcesAndJavadocService.class, spec -> { });
+    return service.get().artifacts;
+  }
+}
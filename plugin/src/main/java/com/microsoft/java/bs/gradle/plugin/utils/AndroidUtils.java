@@ -10,8 +10,9 @@ import com.microsoft.java.bs.gradle.model.impl.DefaultGradleModuleDependency;
 import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSet;
 import com.microsoft.java.bs.gradle.model.impl.DefaultKotlinExtension;
 import com.microsoft.java.bs.gradle.plugin.JavaLanguageModelBuilder;
-import com.microsoft.java.bs.gradle.plugin.SourceSetsModelBuilder;
+import com.microsoft.java.bs.gradle.plugin.ProjectTaskIndex;
 import com.microsoft.java.bs.gradle.plugin.dependency.DependencyCollector;
+import com.microsoft.java.bs.gradle.plugin.dependency.ResolutionCache;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
@@ -23,7 +24,6 @@ import org.gradle.api.tasks.compile.JavaCompile;
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -49,8 +49,13 @@ public class AndroidUtils {
    * them into list of GradleSourceSets.
    *
    * @param project Gradle project for extracting the build variants
+   * @param taskIndex the test and run tasks of the project
+   * @param resolutionCache resolution results of the project
+   * @param supportedLanguages bsp names of the languages to add extensions for
    */
-  public static List<GradleSourceSet> getBuildVariantsAsGradleSourceSets(Project project) {
+  public static List<GradleSourceSet> getBuildVariantsAsGradleSourceSets(Project project,
+      ProjectTaskIndex taskIndex, ResolutionCache resolutionCache,
+      List<String> supportedLanguages) {
 
     Object androidExtension = getAndroidExtension(project);
     if (androidExtension == null) {
@@ -63,7 +68,8 @@ public class AndroidUtils {
             "getTestVariants",
             "getUnitTestVariants")
         .flatMap(name -> getVariant(androidExtension, name).stream())
-        .map(variant -> convertVariantToGradleSourceSet(project, variant))
+        .map(variant -> convertVariantToGradleSourceSet(project, taskIndex, resolutionCache,
+            variant, supportedLanguages))
         .collect(Collectors.toList());
   }
 
@@ -86,11 +92,17 @@ public class AndroidUtils {
    * Android build variant data.
    *
    * @param project Gradle project to populate GradleSourceSet properties
+   * @param taskIndex the test and run tasks of the project
+   * @param resolutionCache resolution results of the project
    * @param variant Android Build Variant object to populate GradleSourceSet properties
+   * @param supportedLanguages bsp names of the languages to add extensions for
    */
   private static GradleSourceSet convertVariantToGradleSourceSet(
       Project project,
-      Object variant
+      ProjectTaskIndex taskIndex,
+      ResolutionCache resolutionCache,
+      Object variant,
+      List<String> supportedLanguages
   ) {
 
     DefaultGradleSourceSet gradleSourceSet = new DefaultGradleSourceSet();
@@ -126,9 +138,9 @@ public class AndroidUtils {
     // extensions
     Map<String, LanguageExtension> extensions = new HashMap<>();
     Set<File> javaSourceDirs = getDirs(variant, "getJavaDirectories");
-    addJavaExtension(extensions, project, javaCompile, javaSourceDirs);
+    addJavaExtension(extensions, project, javaCompile, javaSourceDirs, supportedLanguages);
     Set<File> kotlinSourceDirs = getDirs(variant, "getKotlinDirectories");
-    addKotlinExtension(extensions, kotlinSourceDirs);
+    addKotlinExtension(extensions, kotlinSourceDirs, supportedLanguages);
     gradleSourceSet.setExtensions(extensions);
 
     // compile and runtime configurations
@@ -139,7 +151,8 @@ public class AndroidUtils {
     addClasspath(gradleSourceSet, compileConfig, runtimeConfig, javaCompile);
 
     // module dependencies
-    addModuleDependencies(gradleSourceSet, project, compileConfig, runtimeConfig);
+    addModuleDependencies(gradleSourceSet, project, resolutionCache, compileConfig,
+        runtimeConfig);
 
     // source and resource
     addSourceAndResources(gradleSourceSet, variant);
@@ -159,12 +172,10 @@ public class AndroidUtils {
     gradleSourceSet.setArchiveOutputFiles(new HashMap<>());
 
     // tests
-    gradleSourceSet.setTestTasks(SourceSetsModelBuilder.getTestTasks(project,
-        gradleSourceSet.getSourceOutputDirs()));
+    gradleSourceSet.setTestTasks(taskIndex.getTestTasks(gradleSourceSet.getSourceOutputDirs()));
 
     // run tasks
-    gradleSourceSet.setRunTasks(SourceSetsModelBuilder.getRunTasks(project,
-        gradleSourceSet.getRuntimeClasspath()));
+    gradleSourceSet.setRunTasks(taskIndex.getRunTasks(gradleSourceSet.getRuntimeClasspath()));
 
     return gradleSourceSet;
   }
@@ -174,17 +185,20 @@ public class AndroidUtils {
    *
    * @param gradleSourceSet Instance of DefaultGradleSourceSet
    * @param project Instance of Project
+   * @param resolutionCache resolution results of the project
    * @param compileConfig Compile time configuration
    * @param runtimeConfig Runtime time configuration
    */
   private static void addModuleDependencies(DefaultGradleSourceSet gradleSourceSet,
-      Project project, Configuration compileConfig, Configuration runtimeConfig
+      Project project, ResolutionCache resolutionCache, Configuration compileConfig,
+      Configuration runtimeConfig
   ) {
     List<Configuration> configs = new ArrayList<>();
     configs.add(compileConfig);
     configs.add(runtimeConfig);
     Set<GradleModuleDependency> moduleDependencies = new HashSet<>(
-        DependencyCollector.getModuleDependencies(project.getDependencies(), configs));
+        DependencyCollector.getModuleDependencies(project.getDependencies(), resolutionCache,
+            configs));
 
     // add Android SDK
     Object androidComponents = getAndroidComponentExtension(project);
@@ -360,17 +374,16 @@ public class AndroidUtils {
    * @param project Gradle project
    * @param javaCompile Gradle's Java compile task
    * @param javaSourceDirs source dirs for java compilation
+   * @param supportedLanguages bsp names of the languages to add extensions for
    */
   private static void addJavaExtension(
       Map<String, LanguageExtension> extensions,
       Project project,
       JavaCompile javaCompile,
-      Set<File> javaSourceDirs
+      Set<File> javaSourceDirs,
+      List<String> supportedLanguages
   ) {
-    Set<String> languages = Arrays.stream(SourceSetUtils.getSupportedLanguages())
-        .collect(Collectors.toSet());
-
-    if (languages.contains(SupportedLanguages.JAVA.getBspName())) {
+    if (supportedLanguages.contains(SupportedLanguages.JAVA.getBspName())) {
       JavaLanguageModelBuilder builder = new JavaLanguageModelBuilder();
       LanguageExtension extension = builder.getExtension(project, javaCompile, javaSourceDirs);
       extensions.put(SupportedLanguages.JAVA.getBspName(), extension);
@@ -382,15 +395,14 @@ public class AndroidUtils {
    *
    * @param extensions map of language extensions to populate
    * @param kotlinSourceDirs source dirs for kotlin compilation
+   * @param supportedLanguages bsp names of the languages to add extensions for
    */
   private static void addKotlinExtension(
       Map<String, LanguageExtension> extensions,
-      Set<File> kotlinSourceDirs
+      Set<File> kotlinSourceDirs,
+      List<String> supportedLanguages
   ) {
-    Set<String> languages = Arrays.stream(SourceSetUtils.getSupportedLanguages())
-        .collect(Collectors.toSet());
-
-    if (languages.contains(SupportedLanguages.KOTLIN.getBspName())) {
+    if (supportedLanguages.contains(SupportedLanguages.KOTLIN.getBspName())) {
       // TODO flesh this out once we know how to extract kotlin setup.
       DefaultKotlinExtension extension = new DefaultKotlinExtension();
       extension.setSourceDirs(kotlinSourceDirs);
@@ -8,6 +8,8 @@ import com.microsoft.java.bs.gradle.plugin.KotlinLanguageModelBuilder;
 import com.microsoft.java.bs.gradle.plugin.LanguageModelBuilder;
 import com.microsoft.java.bs.gradle.plugin.ScalaLanguageModelBuilder;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -42,10 +44,13 @@ public class SourceSetUtils {
 
   /**
    * Returns a list of LanguageModelBuilder for the supported languages.
+   *
+   * @param supportedLanguages bsp names of the supported languages
    */
-  public static List<LanguageModelBuilder> getSupportedLanguageModelBuilders() {
+  public static List<LanguageModelBuilder> getSupportedLanguageModelBuilders(
+      List<String> supportedLanguages) {
     List<LanguageModelBuilder> results = new LinkedList<>();
-    for (String language : getSupportedLanguages()) {
+    for (String language : supportedLanguages) {
       if (language.equalsIgnoreCase(SupportedLanguages.JAVA.getBspName())) {
         results.add(new JavaLanguageModelBuilder());
       } else if (language.equalsIgnoreCase(SupportedLanguages.SCALA.getBspName())) {
@@ -62,14 +67,15 @@ public class SourceSetUtils {
   }
 
   /**
-   * Returns a list of bsp names for the supported languages.
+   * Returns a list of bsp names for the supported languages from the system property,
+   * for when the model builder isn't given them as a parameter.
    */
-  public static String[] getSupportedLanguages() {
+  public static List<String> getSupportedLanguages() {
     String supportedLanguagesProps = System.getProperty("bsp.gradle.supportedLanguages");
     if (supportedLanguagesProps != null) {
-      return supportedLanguagesProps.split(",");
+      return Arrays.asList(supportedLanguagesProps.split(","));
     }
-    return new String[]{};
+    return Collections.emptyList();
   }
 
 }
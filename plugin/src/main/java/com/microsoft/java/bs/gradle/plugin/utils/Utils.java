@@ -3,11 +3,16 @@
 
 package com.microsoft.java.bs.gradle.plugin.utils;
 
+import org.gradle.api.NamedDomainObjectCollectionSchema.NamedDomainObjectSchema;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.tasks.TaskContainer;
+import org.gradle.util.GradleVersion;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -52,6 +57,7 @@ public class Utils {
 
   /**
    * get a set of tasks by type.
+   * Only the tasks registered with a matching type are realized.
    *
    * @param project Gradle project
    * @param clazz type of task
@@ -59,9 +65,27 @@ public class Utils {
    */
   public static <T extends Task> Set<T> tasksWithType(Project project, Class<T> clazz) {
     // Gradle gives concurrentmodification exceptions if multiple threads resolve
-    // the tasks concurrently, which happens on multi-project builds
-    synchronized (project.getRootProject()) {
-      return new HashSet<>(project.getTasks().withType(clazz));
+    // the tasks of a project concurrently.  Only lock the project's own tasks so
+    // projects can still be built in parallel on multi-project builds.
+    TaskContainer tasks = project.getTasks();
+    synchronized (tasks) {
+      if (GradleVersion.current().compareTo(GradleVersion.version("4.10")) < 0) {
+        return new HashSet<>(tasks.withType(clazz));
+      }
+      // select the tasks by the type they were registered with so that lazily registered
+      // tasks are only configured when they are needed.
+      // the names are collected first as realizing a task can register further tasks.
+      List<String> names = new ArrayList<>();
+      for (NamedDomainObjectSchema schema : tasks.getCollectionSchema().getElements()) {
+        if (clazz.isAssignableFrom(schema.getPublicType().getConcreteClass())) {
+          names.add(schema.getName());
+        }
+      }
+      Set<T> matching = new HashSet<>();
+      for (String name : names) {
+        matching.add(clazz.cast(tasks.getByName(name)));
+      }
+      return matching;
     }
   }
 
@@ -74,9 +98,10 @@ public class Utils {
   @SuppressWarnings("unchecked")
   public static <T extends Task> T taskByName(Project project, String name) {
     // Gradle gives concurrentmodification exceptions if multiple threads resolve
-    // the tasks concurrently, which happens on multi-project builds
-    synchronized (project.getRootProject()) {
-      return (T) project.getTasks().findByName(name);
+    // the tasks of a project concurrently.
+    TaskContainer tasks = project.getTasks();
+    synchronized (tasks) {
+      return (T) tasks.findByName(name);
     }
   }
 }
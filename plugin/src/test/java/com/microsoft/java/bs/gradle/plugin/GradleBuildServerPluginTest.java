@@ -57,7 +57,8 @@ class GradleBuildServerPluginTest {
   }
 
   private GradleSourceSets getGradleSourceSets(ProjectConnection connect) throws IOException {
-    BuildActionExecuter<GradleSourceSets> action = connect.action(new GetSourceSetsAction());
+    BuildActionExecuter<GradleSourceSets> action = connect.action(
+        new GetSourceSetsAction(null, SupportedLanguages.allBspNames));
     String initScriptContents = PluginHelper.getInitScriptContents();
     File initScript = PluginHelper.getInitScript(initScriptContents);
     try {
@@ -66,7 +67,8 @@ class GradleBuildServerPluginTest {
           .addArguments("-Dorg.gradle.daemon.idletimeout=10")
           .addArguments("-Dorg.gradle.vfs.watch=false")
           .addArguments("-Dorg.gradle.logging.level=quiet")
-          .addJvmArguments("-Dbsp.gradle.supportedLanguages="
+          // only used by Gradle versions that don't support model parameters
+          .addArguments("-Dbsp.gradle.supportedLanguages="
             + String.join(",", SupportedLanguages.allBspNames))
           // Add back in to remote debug
           //.addJvmArguments("-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=5005")
@@ -254,6 +256,16 @@ class GradleBuildServerPluginTest {
         assertTrue(gradleSourceSet.getModuleDependencies().stream().anyMatch(
             dependency -> dependency.getModule().equals("a.jar")
         ));
+        // sources are resolved for all modules together so check they're matched back
+        if (gradleSourceSet.getSourceSetName().equals("test")) {
+          assertTrue(gradleSourceSet.getModuleDependencies().stream().anyMatch(
+              dependency -> dependency.getModule().equals("junit-jupiter-api")
+                  && dependency.getArtifacts().stream().anyMatch(
+                      artifact -> "sources".equals(artifact.getClassifier())
+                          && artifact.getUri().getPath().endsWith(
+                              "junit-jupiter-api-5.11.4-sources.jar"))
+          ));
+        }
 
         if (gradleVersion.compareTo(GradleVersion.version("3.0")) >= 0) {
           assertTrue(gradleSourceSet.getModuleDependencies().stream().anyMatch(
@@ -566,6 +578,41 @@ class GradleBuildServerPluginTest {
     });
   }
 
+  // the test project's unrelated tasks fail the build if they are realized
+  @ParameterizedTest(name = "testLazyTasksNotRealized {0}")
+  @MethodSource("versionsFrom5_0")
+  void testLazyTasksNotRealized(GradleVersion gradleVersion) throws IOException {
+    withSourceSets("lazy-tasks", gradleVersion, gradleSourceSets -> {
+      assertEquals(2, gradleSourceSets.getGradleSourceSets().size());
+      GradleSourceSet testSourceSet = gradleSourceSets.getGradleSourceSets().stream()
+          .filter(sourceSet -> sourceSet.getSourceSetName().equals("test"))
+          .findFirst()
+          .orElse(null);
+      assertNotNull(testSourceSet);
+      assertEquals(2, testSourceSet.getTestTasks().size());
+      assertTrue(testSourceSet.getTestTasks().stream()
+          .anyMatch(task -> task.getTaskPath().equals(":lazyTest")));
+    });
+  }
+
+  // the test project's runtime classpath has a new file each time it's resolved, so the run
+  // task only matches the source set if the classpath is resolved once and reused
+  @ParameterizedTest(name = "testClasspathResolvedOnce {0}")
+  @MethodSource("versionsFrom6_6")
+  void testClasspathResolvedOnce(GradleVersion gradleVersion) throws IOException {
+    withSourceSets("shared-classpath", gradleVersion, gradleSourceSets -> {
+      GradleSourceSet mainSourceSet = gradleSourceSets.getGradleSourceSets().stream()
+          .filter(sourceSet -> sourceSet.getSourceSetName().equals("main"))
+          .findFirst()
+          .orElse(null);
+      assertNotNull(mainSourceSet);
+      assertTrue(mainSourceSet.getRuntimeClasspath().stream()
+          .anyMatch(file -> file.getName().equals("resolution-1")));
+      assertEquals(1, mainSourceSet.getRunTasks().size());
+      assertEquals(":runFoo", mainSourceSet.getRunTasks().iterator().next().getTaskPath());
+    });
+  }
+
   @ParameterizedTest(name = "testScala2ModelBuilder {0}")
   @MethodSource("allVersions")
   void testScala2ModelBuilder(GradleVersion gradleVersion) throws IOException {
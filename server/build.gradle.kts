@@ -38,6 +38,21 @@ application {
   mainClass = "com.microsoft.java.bs.core.Launcher"
 }
 
+// the plugin and model jars are bundled as resources so the init scripts can put them on
+// the classpath directly rather than resolving the plugin from a repository on every build.
+val bundledPlugin: Configuration by configurations.creating {
+  isCanBeConsumed = false
+  isTransitive = false
+}
+
+tasks.named<ProcessResources>("processResources") {
+  from(bundledPlugin) {
+    into("bundled-plugin")
+    rename("plugin-.*\\.jar", "plugin.jar")
+    rename("model-.*\\.jar", "model.jar")
+  }
+}
+
 tasks.named<Test>("test") {
   useJUnitPlatform()
   testLogging {
@@ -53,6 +68,9 @@ dependencies {
   implementation("org.gradle:gradle-tooling-api:8.12")
   implementation("com.google.code.gson:gson:2.10.1")
 
+  bundledPlugin(project(":plugin"))
+  bundledPlugin(project(":model"))
+
   testImplementation(platform("org.junit:junit-bom:5.11.4"))
   testImplementation("org.junit.jupiter:junit-jupiter")
   testImplementation("org.mockito:mockito-core:5.15.2")
@@ -0,0 +1,86 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package ch.epfl.scala.bsp4j.extended;
+
+import java.util.Objects;
+
+import ch.epfl.scala.bsp4j.BuildServerCapabilities;
+
+/**
+ * Extended {@link BuildServerCapabilities}, which contains the capabilities of the
+ * requests in {@link BuildServerEx}.
+ */
+public class BuildServerCapabilitiesEx extends BuildServerCapabilities {
+
+  private Boolean inverseSourcesBatchProvider;
+
+  private Boolean didChangeFilesProvider;
+
+  /**
+   * Create a new instance of {@link BuildServerCapabilitiesEx}.
+   */
+  public BuildServerCapabilitiesEx() {
+    super();
+  }
+
+  /**
+   * get whether the server supports buildTarget/inverseSourcesBatch.
+   *
+   * @return whether the request is supported
+   */
+  public Boolean getInverseSourcesBatchProvider() {
+    return inverseSourcesBatchProvider;
+  }
+
+  /**
+   * set whether the server supports buildTarget/inverseSourcesBatch.
+   *
+   * @param inverseSourcesBatchProvider whether the request is supported
+   */
+  public void setInverseSourcesBatchProvider(Boolean inverseSourcesBatchProvider) {
+    this.inverseSourcesBatchProvider = inverseSourcesBatchProvider;
+  }
+
+  /**
+   * get whether the server supports workspace/didChangeFiles.
+   *
+   * @return whether the notification is supported
+   */
+  public Boolean getDidChangeFilesProvider() {
+    return didChangeFilesProvider;
+  }
+
+  /**
+   * set whether the server supports workspace/didChangeFiles.
+   *
+   * @param didChangeFilesProvider whether the notification is supported
+   */
+  public void setDidChangeFilesProvider(Boolean didChangeFilesProvider) {
+    this.didChangeFilesProvider = didChangeFilesProvider;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = super.hashCode();
+    result = prime * result + Objects.hash(inverseSourcesBatchProvider, didChangeFilesProvider);
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!super.equals(obj)) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    BuildServerCapabilitiesEx other = (BuildServerCapabilitiesEx) obj;
+    return Objects.equals(inverseSourcesBatchProvider, other.inverseSourcesBatchProvider)
+        && Objects.equals(didChangeFilesProvider, other.didChangeFilesProvider);
+  }
+}
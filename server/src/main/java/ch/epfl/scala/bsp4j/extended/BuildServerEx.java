@@ -0,0 +1,39 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package ch.epfl.scala.bsp4j.extended;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.lsp4j.jsonrpc.services.JsonNotification;
+import org.eclipse.lsp4j.jsonrpc.services.JsonRequest;
+
+/**
+ * Requests and notifications this server supports on top of the Build Server Protocol.
+ */
+public interface BuildServerEx {
+
+  /**
+   * The batch version of buildTarget/inverseSources, which finds the build targets of
+   * many text documents in one round trip.
+   * Only supported when {@link BuildServerCapabilitiesEx#getInverseSourcesBatchProvider()}
+   * is true.
+   *
+   * @param params the text documents to find the build targets of
+   * @return the build targets of each text document
+   */
+  @JsonRequest("buildTarget/inverseSourcesBatch")
+  CompletableFuture<InverseSourcesBatchResult> buildTargetInverseSourcesBatch(
+      InverseSourcesBatchParams params);
+
+  /**
+   * Tells the server which files the client has seen change on disk, so the server can
+   * pass them on to the Gradle daemons instead of them finding the changes on the next build.
+   * Only supported when {@link BuildServerCapabilitiesEx#getDidChangeFilesProvider()}
+   * is true.
+   *
+   * @param params the changed files
+   */
+  @JsonNotification("workspace/didChangeFiles")
+  void onWorkspaceDidChangeFiles(DidChangeFilesParams params);
+}
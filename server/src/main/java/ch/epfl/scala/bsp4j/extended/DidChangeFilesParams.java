@@ -0,0 +1,73 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package ch.epfl.scala.bsp4j.extended;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.lsp4j.jsonrpc.validation.NonNull;
+import org.eclipse.xtext.xbase.lib.Pure;
+import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
+
+/**
+ * The parameters of workspace/didChangeFiles.
+ */
+public class DidChangeFilesParams {
+
+  @NonNull
+  private List<String> uris;
+
+  /**
+   * Create a new instance of {@link DidChangeFilesParams}.
+   *
+   * @param uris the URIs of the files that were created, changed or deleted
+   */
+  public DidChangeFilesParams(@NonNull List<String> uris) {
+    this.uris = uris;
+  }
+
+  /**
+   * get the URIs of the files that were created, changed or deleted.
+   *
+   * @return the URIs
+   */
+  @NonNull
+  public List<String> getUris() {
+    return uris;
+  }
+
+  /**
+   * set the URIs of the files that were created, changed or deleted.
+   *
+   * @param uris the URIs
+   */
+  public void setUris(@NonNull List<String> uris) {
+    this.uris = uris;
+  }
+
+  @Override
+  @Pure
+  public String toString() {
+    ToStringBuilder b = new ToStringBuilder(this);
+    b.add("uris", this.uris);
+    return b.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(uris);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    DidChangeFilesParams other = (DidChangeFilesParams) obj;
+    return Objects.equals(uris, other.uris);
+  }
+}
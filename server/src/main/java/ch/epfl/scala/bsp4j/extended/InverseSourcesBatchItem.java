@@ -0,0 +1,103 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package ch.epfl.scala.bsp4j.extended;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.lsp4j.jsonrpc.validation.NonNull;
+import org.eclipse.xtext.xbase.lib.Pure;
+import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import ch.epfl.scala.bsp4j.TextDocumentIdentifier;
+
+/**
+ * The build targets of one text document in the result of buildTarget/inverseSourcesBatch.
+ */
+public class InverseSourcesBatchItem {
+
+  @NonNull
+  private TextDocumentIdentifier textDocument;
+
+  @NonNull
+  private List<BuildTargetIdentifier> targets;
+
+  /**
+   * Create a new instance of {@link InverseSourcesBatchItem}.
+   *
+   * @param textDocument the text document
+   * @param targets the build targets the text document belongs to
+   */
+  public InverseSourcesBatchItem(@NonNull TextDocumentIdentifier textDocument,
+      @NonNull List<BuildTargetIdentifier> targets) {
+    this.textDocument = textDocument;
+    this.targets = targets;
+  }
+
+  /**
+   * get the text document.
+   *
+   * @return the text document
+   */
+  @NonNull
+  public TextDocumentIdentifier getTextDocument() {
+    return textDocument;
+  }
+
+  /**
+   * set the text document.
+   *
+   * @param textDocument the text document
+   */
+  public void setTextDocument(@NonNull TextDocumentIdentifier textDocument) {
+    this.textDocument = textDocument;
+  }
+
+  /**
+   * get the build targets the text document belongs to.
+   *
+   * @return the build targets
+   */
+  @NonNull
+  public List<BuildTargetIdentifier> getTargets() {
+    return targets;
+  }
+
+  /**
+   * set the build targets the text document belongs to.
+   *
+   * @param targets the build targets
+   */
+  public void setTargets(@NonNull List<BuildTargetIdentifier> targets) {
+    this.targets = targets;
+  }
+
+  @Override
+  @Pure
+  public String toString() {
+    ToStringBuilder b = new ToStringBuilder(this);
+    b.add("textDocument", this.textDocument);
+    b.add("targets", this.targets);
+    return b.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(textDocument, targets);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    InverseSourcesBatchItem other = (InverseSourcesBatchItem) obj;
+    return Objects.equals(textDocument, other.textDocument)
+        && Objects.equals(targets, other.targets);
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package ch.epfl.scala.bsp4j.extended;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.lsp4j.jsonrpc.validation.NonNull;
+import org.eclipse.xtext.xbase.lib.Pure;
+import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
+
+import ch.epfl.scala.bsp4j.TextDocumentIdentifier;
+
+/**
+ * The parameters of buildTarget/inverseSourcesBatch.
+ */
+public class InverseSourcesBatchParams {
+
+  @NonNull
+  private List<TextDocumentIdentifier> textDocuments;
+
+  /**
+   * Create a new instance of {@link InverseSourcesBatchParams}.
+   *
+   * @param textDocuments the text documents to find the build targets of
+   */
+  public InverseSourcesBatchParams(@NonNull List<TextDocumentIdentifier> textDocuments) {
+    this.textDocuments = textDocuments;
+  }
+
+  /**
+   * get the text documents to find the build targets of.
+   *
+   * @return the text documents
+   */
+  @NonNull
+  public List<TextDocumentIdentifier> getTextDocuments() {
+    return textDocuments;
+  }
+
+  /**
+   * set the text documents to find the build targets of.
+   *
+   * @param textDocuments the text documents
+   */
+  public void setTextDocuments(@NonNull List<TextDocumentIdentifier> textDocuments) {
+    this.textDocuments = textDocuments;
+  }
+
+  @Override
+  @Pure
+  public String toString() {
+    ToStringBuilder b = new ToStringBuilder(this);
+    b.add("textDocuments", this.textDocuments);
+    return b.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(textDocuments);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    InverseSourcesBatchParams other = (InverseSourcesBatchParams) obj;
+    return Objects.equals(textDocuments, other.textDocuments);
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package ch.epfl.scala.bsp4j.extended;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.lsp4j.jsonrpc.validation.NonNull;
+import org.eclipse.xtext.xbase.lib.Pure;
+import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
+
+/**
+ * The result of buildTarget/inverseSourcesBatch, with one item per requested text document.
+ */
+public class InverseSourcesBatchResult {
+
+  @NonNull
+  private List<InverseSourcesBatchItem> items;
+
+  /**
+   * Create a new instance of {@link InverseSourcesBatchResult}.
+   *
+   * @param items the build targets of each text document
+   */
+  public InverseSourcesBatchResult(@NonNull List<InverseSourcesBatchItem> items) {
+    this.items = items;
+  }
+
+  /**
+   * get the build targets of each text document.
+   *
+   * @return the items
+   */
+  @NonNull
+  public List<InverseSourcesBatchItem> getItems() {
+    return items;
+  }
+
+  /**
+   * set the build targets of each text document.
+   *
+   * @param items the items
+   */
+  public void setItems(@NonNull List<InverseSourcesBatchItem> items) {
+    this.items = items;
+  }
+
+  @Override
+  @Pure
+  public String toString() {
+    ToStringBuilder b = new ToStringBuilder(this);
+    b.add("items", this.items);
+    return b.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(items);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    InverseSourcesBatchResult other = (InverseSourcesBatchResult) obj;
+    return Objects.equals(items, other.items);
+  }
+}
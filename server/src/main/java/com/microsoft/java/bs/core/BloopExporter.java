@@ -359,24 +359,19 @@ public class BloopExporter {
     GradleConnector connector = GradleConnector.newConnector()
             .forProjectDirectory(projectDir);
     try (ProjectConnection connection = connector.connect()) {
-      GetSourceSetsAction getSourceSetsAction = new GetSourceSetsAction();
+      List<String> languages = List.of("java", "scala");
+      GetSourceSetsAction getSourceSetsAction = new GetSourceSetsAction(null, languages);
       BuildActionExecuter<GradleSourceSets> buildExecutor =
           connection.action(getSourceSetsAction);
       String initScriptContents = Utils.createPluginScript(null, null, null);
       File initScript = Utils.createInitScriptFile("bloopExport", initScriptContents);
-      try {
-        return buildExecutor
-                .setStandardError(System.err)
-                .setStandardOutput(System.out)
-                .addArguments("--init-script", initScript.getAbsolutePath())
-                .addJvmArguments("-Dbsp.gradle.supportedLanguages=java,scala")
-                .run()
-                .getGradleSourceSets();
-      } finally {
-        if (initScript != null) {
-          initScript.delete();
-        }
-      }
+      return buildExecutor
+              .setStandardError(System.err)
+              .setStandardOutput(System.out)
+              .addArguments("--init-script", initScript.getAbsolutePath())
+              .addArguments("-Dbsp.gradle.supportedLanguages=" + String.join(",", languages))
+              .run()
+              .getGradleSourceSets();
     } catch (Exception e) {
       throw new IllegalStateException("Error extracting config", e);
     }
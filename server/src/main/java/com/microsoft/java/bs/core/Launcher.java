@@ -103,7 +103,10 @@ public class Launcher {
 
   private static org.eclipse.lsp4j.jsonrpc.Launcher<BuildClient> 
       createLauncher(OutputStream outputStream, InputStream inputStream) {
-    return createLauncher(outputStream, inputStream, Executors.newCachedThreadPool(), getTracer());
+    // the message reader must run on a non-daemon platform thread as it is what keeps the
+    // JVM alive once main returns.  Requests are run by the GradleBuildServer's own executor.
+    ExecutorService threadPool = Executors.newCachedThreadPool();
+    return createLauncher(outputStream, inputStream, threadPool, getTracer());
   }
 
   /**
@@ -0,0 +1,70 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.gradle;
+
+import static com.microsoft.java.bs.core.Launcher.LOGGER;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import com.microsoft.java.bs.core.internal.log.BspTraceEntity;
+
+/**
+ * Counts how many builds run with the configuration cache reuse a cached configuration.
+ * Gradle only reports this in the build output so each build's output is scanned for it.
+ */
+class ConfigurationCacheStats {
+
+  private static final String REUSED_MESSAGE = "Reusing configuration cache.";
+
+  private final AtomicInteger hits = new AtomicInteger();
+
+  private final AtomicInteger builds = new AtomicInteger();
+
+  /**
+   * The standard output of a build, which remembers whether the configuration was reused.
+   */
+  static class BuildOutput extends OutputStream {
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private boolean reused;
+
+    @Override
+    public synchronized void write(int b) {
+      if (b == '\n') {
+        if (line.toString(StandardCharsets.UTF_8).trim().equals(REUSED_MESSAGE)) {
+          reused = true;
+        }
+        line.reset();
+      } else {
+        line.write(b);
+      }
+    }
+
+    synchronized boolean isReused() {
+      return reused;
+    }
+  }
+
+  /**
+   * Record whether a build reused its configuration and log the hit rate so far.
+   *
+   * @param root the root dir of the build
+   * @param output the standard output of the build
+   */
+  void record(File root, BuildOutput output) {
+    boolean reused = output.isReused();
+    int hitCount = reused ? hits.incrementAndGet() : hits.get();
+    int buildCount = builds.incrementAndGet();
+    BspTraceEntity entity = new BspTraceEntity.Builder()
+        .operationName(reused ? "configuration-cache-hit" : "configuration-cache-miss")
+        .build();
+    LOGGER.log(Level.INFO, String.format(
+        "Configuration cache %s for '%s', %d of %d builds have reused their configuration.",
+        reused ? "hit" : "miss", root, hitCount, buildCount), entity);
+  }
+}
@@ -9,6 +9,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -29,6 +30,7 @@ import org.gradle.tooling.GradleConnector;
 import org.gradle.tooling.ModelBuilder;
 import org.gradle.tooling.ProjectConnection;
 import org.gradle.tooling.TestLauncher;
+import org.gradle.tooling.UnsupportedVersionException;
 import org.gradle.tooling.events.OperationType;
 import org.gradle.tooling.model.build.BuildEnvironment;
 import org.gradle.tooling.model.gradle.GradleBuild;
@@ -57,6 +59,13 @@ public class GradleApiConnector {
   // cancellations especially can lead to concurrent calls to `connectors#computeIfAbsent`
   private final ConcurrentHashMap<File, GradleConnector> connectors;
   private final PreferenceManager preferenceManager;
+  private final GradleOperationScheduler scheduler;
+  // roots whose Gradle version can't be told about changed paths.
+  private final Set<File> changedPathsUnsupported;
+  private final ConfigurationCacheStats configurationCacheStats;
+  // the daemon settings of the first operation on each root.
+  private final Map<File, DaemonSettings> daemonSettings;
+  private final Set<DaemonSettings> reportedDaemonSettings;
 
   private static final String UNSUPPORTED_BUILD_ENVIRONMENT_MESSAGE =
       "Could not create an instance of Tooling API implementation "
@@ -70,6 +79,11 @@ public class GradleApiConnector {
   public GradleApiConnector(PreferenceManager preferenceManager) {
     this.preferenceManager = preferenceManager;
     connectors = new ConcurrentHashMap<>();
+    scheduler = new GradleOperationScheduler();
+    changedPathsUnsupported = ConcurrentHashMap.newKeySet();
+    configurationCacheStats = new ConfigurationCacheStats();
+    daemonSettings = new ConcurrentHashMap<>();
+    reportedDaemonSettings = ConcurrentHashMap.newKeySet();
   }
 
   /**
@@ -81,6 +95,13 @@ public class GradleApiConnector {
    */
   public BuildEnvironment getBuildEnvironment(URI projectUri,
       CancellationToken cancellationToken) {
+    checkDaemonSettings(new File(projectUri), "buildEnvironment", getGradleJvmArguments());
+    return scheduler.run(new File(projectUri), "buildEnvironment", cancellationToken,
+        () -> doGetBuildEnvironment(projectUri, cancellationToken));
+  }
+
+  private BuildEnvironment doGetBuildEnvironment(URI projectUri,
+      CancellationToken cancellationToken) {
     try (ProjectConnection connection = getGradleConnector(projectUri).connect()) {
       return getBuildEnvironment(connection, cancellationToken);
     } catch (BuildException e) {
@@ -113,6 +134,13 @@ public class GradleApiConnector {
    */
   public boolean checkCompatibilityWithProbeBuild(URI projectUri,
       CancellationToken cancellationToken) {
+    checkDaemonSettings(new File(projectUri), "probeBuild", getGradleJvmArguments());
+    return scheduler.run(new File(projectUri), "probeBuild", cancellationToken,
+        () -> doCheckCompatibilityWithProbeBuild(projectUri, cancellationToken));
+  }
+
+  private boolean doCheckCompatibilityWithProbeBuild(URI projectUri,
+      CancellationToken cancellationToken) {
     try (ProjectConnection connection = getGradleConnector(projectUri).connect()) {
       ModelBuilder<GradleBuild> modelBuilder = Utils.setLauncherProperties(
           connection.model(GradleBuild.class), preferenceManager.getPreferences(),
@@ -149,6 +177,29 @@ public class GradleApiConnector {
    */
   public GradleSourceSets getGradleSourceSets(URI projectUri, BuildClient client,
       CancellationToken cancellationToken) {
+    return getGradleSourceSets(projectUri, null, client, cancellationToken);
+  }
+
+  /**
+   * Get the source sets of some of the projects in the Gradle build.
+   * The source sets are not linked to the source sets of other projects.
+   *
+   * @param projectUri uri of the project
+   * @param projectDirs the dirs of the projects to retrieve or null for all projects
+   * @param client     connection to BSP client
+   * @param cancellationToken the Gradle cancellation token.
+   * @return an instance of {@link GradleSourceSets}
+   */
+  public GradleSourceSets getGradleSourceSets(URI projectUri, Set<File> projectDirs,
+      BuildClient client, CancellationToken cancellationToken) {
+    checkDaemonSettings(new File(projectUri), "sourceSets", getGradleJvmArguments());
+    return scheduler.run(new File(projectUri), "sourceSets", cancellationToken,
+        () -> doGetGradleSourceSets(projectUri, projectDirs, client,
+            cancellationToken));
+  }
+
+  private GradleSourceSets doGetGradleSourceSets(URI projectUri, Set<File> projectDirs,
+      BuildClient client, CancellationToken cancellationToken) {
     ProgressReporter reporter = new DefaultProgressReporter(client);
     ByteArrayOutputStream errorOut = new ByteArrayOutputStream();
     try (ProjectConnection connection = getGradleConnector(projectUri).connect();
@@ -158,36 +209,36 @@ public class GradleApiConnector {
           preferenceManager.getPreferences().getJavaSemanticdbVersion(),
           preferenceManager.getPreferences().getScalaSemanticdbVersion());
       File initScript = Utils.createInitScriptFile("sourcesets", pluginInitScript);
-      try {
-        BuildActionExecuter<GradleSourceSets> buildExecutor =
-            Utils.getBuildActionExecuter(connection, preferenceManager.getPreferences(),
-              new GetSourceSetsAction(), cancellationToken)
-            .addProgressListener(reporter,
-                OperationType.FILE_DOWNLOAD, OperationType.PROJECT_CONFIGURATION)
-            .setStandardError(errorOut);
-        if (Boolean.getBoolean("bsp.plugin.debug.enabled")) {
-          buildExecutor.addJvmArguments(
-              "-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=5005");
-        }
-        if (initScript != null) {
-          buildExecutor.addArguments("--init-script", initScript.getAbsolutePath());
-        }
-        buildExecutor.addJvmArguments("-Dbsp.gradle.supportedLanguages="
-            + String.join(",", preferenceManager.getClientSupportedLanguages()));
-        // since the model returned from Gradle TAPI is a wrapped object, here we re-construct it
-        // via a copy constructor and return as a POJO.
-        return new DefaultGradleSourceSets(buildExecutor.run());
-      } finally {
-        if (initScript != null) {
-          initScript.delete();
-        }
+      BuildActionExecuter<GradleSourceSets> buildExecutor =
+          Utils.getBuildActionExecuter(connection, preferenceManager.getPreferences(),
+            new GetSourceSetsAction(projectDirs,
+                preferenceManager.getClientSupportedLanguages()), cancellationToken)
+          .addProgressListener(reporter,
+              OperationType.FILE_DOWNLOAD, OperationType.PROJECT_CONFIGURATION)
+          .setStandardError(errorOut);
+      if (Boolean.getBoolean("bsp.plugin.debug.enabled")) {
+        buildExecutor.addJvmArguments(
+            "-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=5005");
+      }
+      if (initScript != null) {
+        buildExecutor.addArguments("--init-script", initScript.getAbsolutePath());
       }
+      // only used by Gradle versions that don't support model parameters.
+      // passed as a build argument as a JVM argument would need a separate daemon.
+      buildExecutor.addArguments("-Dbsp.gradle.supportedLanguages="
+          + String.join(",", preferenceManager.getClientSupportedLanguages()));
+      // since the model returned from Gradle TAPI is a wrapped object, here we re-construct it
+      // via a copy constructor and return as a POJO.
+      return new DefaultGradleSourceSets(buildExecutor.run());
     } catch (GradleConnectionException | IllegalStateException | IOException e) {
-      String summary = e.getMessage();
-      if (errorOut.size() > 0) {
-        summary += "\n" + errorOut;
+      // a cancelled fetch isn't an error, e.g. a reload superseded by a newer one.
+      if (cancellationToken == null || !cancellationToken.isCancellationRequested()) {
+        String summary = e.getMessage();
+        if (errorOut.size() > 0) {
+          summary += "\n" + errorOut;
+        }
+        reporter.sendError(summary);
       }
-      reporter.sendError(summary);
       throw new IllegalStateException(e);
     }
   }
@@ -199,10 +250,18 @@ public class GradleApiConnector {
    * @param reporter   reporter on feedback from Gradle
    * @param cancellationToken the Gradle cancellation token.
    * @param tasks      tasks to run
+   * @param gradleVersion the Gradle version of the project or null if unknown
    * @return the result of running the tasks
    */
   public StatusCode runTasks(URI projectUri, ProgressReporter reporter,
-      String[] tasks, CancellationToken cancellationToken) {
+      String[] tasks, CancellationToken cancellationToken, String gradleVersion) {
+    checkDaemonSettings(new File(projectUri), "runTasks", getGradleJvmArguments());
+    return scheduler.run(new File(projectUri), "runTasks", cancellationToken,
+        () -> doRunTasks(projectUri, reporter, tasks, cancellationToken, gradleVersion));
+  }
+
+  private StatusCode doRunTasks(URI projectUri, ProgressReporter reporter,
+      String[] tasks, CancellationToken cancellationToken, String gradleVersion) {
     // Don't issue a start progress update - the listener will pick that up automatically
     final ByteArrayOutputStream errorOut = new ByteArrayOutputStream();
     StatusCode statusCode = StatusCode.OK;
@@ -214,21 +273,24 @@ public class GradleApiConnector {
               preferenceManager.getPreferences().getJavaSemanticdbVersion(),
               preferenceManager.getPreferences().getScalaSemanticdbVersion());
       File initScript = Utils.createInitScriptFile("runTask", compilerOptionsScript);
-      try {
-        BuildLauncher launcher = Utils.getBuildLauncher(connection,
-            preferenceManager.getPreferences(), cancellationToken);
-        if (initScript != null) {
-          launcher.addArguments("--init-script", initScript.getAbsolutePath());
-        }
-        // TODO: consider to use outputstream to capture the output.
-        launcher.addProgressListener(reporter, OperationType.TASK)
-            .setStandardError(errorOut)
-            .forTasks(tasks)
-            .run();
-      } finally {
-        if (initScript != null) {
-          initScript.delete();
-        }
+      BuildLauncher launcher = Utils.getBuildLauncher(connection,
+          preferenceManager.getPreferences(), cancellationToken);
+      if (initScript != null) {
+        launcher.addArguments("--init-script", initScript.getAbsolutePath());
+      }
+      ConfigurationCacheStats.BuildOutput buildOutput = null;
+      if (useConfigurationCache(gradleVersion)) {
+        buildOutput = new ConfigurationCacheStats.BuildOutput();
+        launcher.addArguments("--configuration-cache")
+            .setStandardOutput(buildOutput);
+      }
+      // TODO: consider to use outputstream to capture the output.
+      launcher.addProgressListener(reporter, OperationType.TASK)
+          .setStandardError(errorOut)
+          .forTasks(tasks)
+          .run();
+      if (buildOutput != null) {
+        configurationCacheStats.record(workspaceDir, buildOutput);
       }
     } catch (IOException e) {
       // caused by close the output stream, just simply log the error.
@@ -271,7 +333,9 @@ public class GradleApiConnector {
       CompileProgressReporter compileProgressReporter,
       CancellationToken cancellationToken,
       String gradleVersion) {
-
+    checkDaemonSettings(new File(projectUri), "runTests", jvmOptions);
+    // not queued with the other operations as a test suite can run for long enough to
+    // block every compile and model fetch on the root.
     StatusCode statusCode = StatusCode.OK;
     ProgressReporter reporter = new DefaultProgressReporter(client);
     try (ProjectConnection connection = getGradleConnector(projectUri).connect()) {
@@ -294,43 +358,37 @@ public class GradleApiConnector {
                     preferenceManager.getPreferences().getJavaSemanticdbVersion(),
                     preferenceManager.getPreferences().getScalaSemanticdbVersion());
             File initScript = Utils.createInitScriptFile("runTest", compilerOptionsScript);
-            try {
-              TestLauncher launcher = Utils
-                  .getTestLauncher(connection,
-                     preferenceManager.getPreferences(), cancellationToken)
-                  .setStandardError(errorOut)
-                  .addProgressListener(testReportReporter, OperationType.TEST);
-              if (initScript != null) {
-                launcher.addArguments("--init-script", initScript.getAbsolutePath());
-              }
-              if (compileProgressReporter != null) {
-                launcher.addProgressListener(compileProgressReporter, OperationType.TASK);
-              }
-              for (Map.Entry<String, Set<String>> classesMethods : entry.getValue().entrySet()) {
-                if (classesMethods.getValue() != null && !classesMethods.getValue().isEmpty()) {
-                  launcher.withJvmTestMethods(classesMethods.getKey() + '*',
-                      classesMethods.getValue());
-                } else {
-                  launcher.withJvmTestClasses(classesMethods.getKey() + '*');
-                }
-              }
-              launcher.withArguments(args);
-              launcher.setJvmArguments(jvmOptions);
-              // env vars requires Gradle >= 3.5
-              if (envVars != null) {
-                // Running Gradle tests on Windows seems to require the `SystemRoot` env var
-                // Otherwise Windows complains "Unrecognized Windows Sockets error: 10106"
-                // Assumption is that current env vars plus specified env vars are all wanted.
-                Map<String, String> allEnvVars = new HashMap<>(System.getenv());
-                allEnvVars.putAll(envVars);
-                launcher.setEnvironmentVariables(allEnvVars);
-              }
-              launcher.run();
-            } finally {
-              if (initScript != null) {
-                initScript.delete();
+            TestLauncher launcher = Utils
+                .getTestLauncher(connection,
+                   preferenceManager.getPreferences(), cancellationToken)
+                .setStandardError(errorOut)
+                .addProgressListener(testReportReporter, OperationType.TEST);
+            if (initScript != null) {
+              launcher.addArguments("--init-script", initScript.getAbsolutePath());
+            }
+            if (compileProgressReporter != null) {
+              launcher.addProgressListener(compileProgressReporter, OperationType.TASK);
+            }
+            for (Map.Entry<String, Set<String>> classesMethods : entry.getValue().entrySet()) {
+              if (classesMethods.getValue() != null && !classesMethods.getValue().isEmpty()) {
+                launcher.withJvmTestMethods(classesMethods.getKey() + '*',
+                    classesMethods.getValue());
+              } else {
+                launcher.withJvmTestClasses(classesMethods.getKey() + '*');
               }
             }
+            launcher.withArguments(args);
+            launcher.setJvmArguments(jvmOptions);
+            // env vars requires Gradle >= 3.5
+            if (envVars != null) {
+              // Running Gradle tests on Windows seems to require the `SystemRoot` env var
+              // Otherwise Windows complains "Unrecognized Windows Sockets error: 10106"
+              // Assumption is that current env vars plus specified env vars are all wanted.
+              Map<String, String> allEnvVars = new HashMap<>(System.getenv());
+              allEnvVars.putAll(envVars);
+              launcher.setEnvironmentVariables(allEnvVars);
+            }
+            launcher.run();
           } catch (IOException e) {
             // caused by close the output stream, just simply log the error.
             LOGGER.severe(e.getMessage());
@@ -369,6 +427,16 @@ public class GradleApiConnector {
       Map<BuildTargetIdentifier, Set<GradleTestTask>> testTaskMap, BuildClient client,
       CompileProgressReporter compileProgressReporter, CancellationToken cancellationToken,
       String gradleVersion) {
+    checkDaemonSettings(new File(projectUri), "testClasses", getGradleJvmArguments());
+    return scheduler.run(new File(projectUri), "testClasses", cancellationToken,
+        () -> doGetTestClasses(projectUri, testTaskMap, client,
+            compileProgressReporter, cancellationToken, gradleVersion));
+  }
+
+  private Map<BuildTargetIdentifier, List<GradleTestEntity>> doGetTestClasses(URI projectUri,
+      Map<BuildTargetIdentifier, Set<GradleTestTask>> testTaskMap, BuildClient client,
+      CompileProgressReporter compileProgressReporter, CancellationToken cancellationToken,
+      String gradleVersion) {
  
     Map<BuildTargetIdentifier, List<GradleTestEntity>> results = new HashMap<>();
     DefaultProgressReporter reporter = new DefaultProgressReporter(client);
@@ -392,33 +460,27 @@ public class GradleApiConnector {
                 preferenceManager.getPreferences().getScalaSemanticdbVersion());
             String script = testScript + '\n' + compilerOptionsScript;
             File initScript = Utils.createInitScriptFile("testTask", script);
+            TestNameRecorder testNameRecorder = new TestNameRecorder();
             try {
-              TestNameRecorder testNameRecorder = new TestNameRecorder();
-              try {
-                TestLauncher launcher = Utils
-                    .getTestLauncher(connection,
-                        preferenceManager.getPreferences(), cancellationToken)
-                    .forTasks(gradleTestTask.getTaskPath())
-                    .addArguments("--init-script", initScript.getAbsolutePath())
-                    .addProgressListener(testNameRecorder, OperationType.TEST)
-                    .addProgressListener(reporter, OperationType.TASK);
-                if (compileProgressReporter != null) {
-                  launcher.addProgressListener(compileProgressReporter, OperationType.TASK);
-                }
-                launcher.run();
-              } catch (GradleConnectionException | IllegalStateException e) {
-                String message = String.join("\n", ExceptionUtils.getRootCauseStackTraceList(e));
-                reporter.sendError("Error searching for test classes in " 
-                    + gradleTestTask.getTaskPath() + " " + message);
-              }
-              Set<String> mainClasses = testNameRecorder.getMainClasses();
-              GradleTestEntity gradleTestEntity = new GradleTestEntity(gradleTestTask, mainClasses);
-              gradleTestEntities.add(gradleTestEntity);
-            } finally {
-              if (initScript != null) {
-                initScript.delete();
+              TestLauncher launcher = Utils
+                  .getTestLauncher(connection,
+                      preferenceManager.getPreferences(), cancellationToken)
+                  .forTasks(gradleTestTask.getTaskPath())
+                  .addArguments("--init-script", initScript.getAbsolutePath())
+                  .addProgressListener(testNameRecorder, OperationType.TEST)
+                  .addProgressListener(reporter, OperationType.TASK);
+              if (compileProgressReporter != null) {
+                launcher.addProgressListener(compileProgressReporter, OperationType.TASK);
               }
+              launcher.run();
+            } catch (GradleConnectionException | IllegalStateException e) {
+              String message = String.join("\n", ExceptionUtils.getRootCauseStackTraceList(e));
+              reporter.sendError("Error searching for test classes in " 
+                  + gradleTestTask.getTaskPath() + " " + message);
             }
+            Set<String> mainClasses = testNameRecorder.getMainClasses();
+            GradleTestEntity gradleTestEntity = new GradleTestEntity(gradleTestTask, mainClasses);
+            gradleTestEntities.add(gradleTestEntity);
           }
 
           results.put(entry.getKey(), gradleTestEntities);
@@ -452,6 +514,9 @@ public class GradleApiConnector {
       List<String> arguments, BuildClient client, String originId,
       CompileProgressReporter compileProgressReporter, CancellationToken cancellationToken) {
 
+    checkDaemonSettings(new File(projectUri), "runMainClass", getGradleJvmArguments());
+    // not queued with the other operations as the main class can run for as long as
+    // the user wants, which would block every other operation on the root.
     StatusCode statusCode = StatusCode.OK;
     String taskName = "buildServerRunApp";
     try (AppRunReporter reporter = new AppRunReporter(client, originId, taskName)) {
@@ -466,32 +531,26 @@ public class GradleApiConnector {
             preferenceManager.getPreferences().getScalaSemanticdbVersion());
         String script = execScript + '\n' + compilerOptionsScript;
         File initScript = Utils.createInitScriptFile("runMain", script);
-        try {
-          BuildLauncher launcher = Utils
-              .getBuildLauncher(connection,
-                  preferenceManager.getPreferences(), cancellationToken)
-              .forTasks(taskName)
-              // TODO this is needed to feedback the main class stdOut/Err but it will also feedback
-              // Gradle stdOut/Err so reporter will report on any compile messages etc.
-              // Unsure how to filter those out.
-              .setStandardOutput(reporter.getStdOut())
-              .setStandardError(reporter.getStdErr())
-              // TODO BSP `run/readStdin` - how to link which running task gets which StdIn data?
-              //    .setStandardInput(reporter.getStdIn())
-              .addProgressListener(reporter, OperationType.TASK);
-          if (initScript != null) {
-            launcher.addArguments("--init-script", initScript.getAbsolutePath());
-          }
-          if (compileProgressReporter != null) {
-            launcher.addProgressListener(compileProgressReporter, OperationType.TASK);
-          }
-          // run method is blocking
-          launcher.run();
-        } finally {
-          if (initScript != null) {
-            initScript.delete();
-          }
+        BuildLauncher launcher = Utils
+            .getBuildLauncher(connection,
+                preferenceManager.getPreferences(), cancellationToken)
+            .forTasks(taskName)
+            // TODO this is needed to feedback the main class stdOut/Err but it will also feedback
+            // Gradle stdOut/Err so reporter will report on any compile messages etc.
+            // Unsure how to filter those out.
+            .setStandardOutput(reporter.getStdOut())
+            .setStandardError(reporter.getStdErr())
+            // TODO BSP `run/readStdin` - how to link which running task gets which StdIn data?
+            //    .setStandardInput(reporter.getStdIn())
+            .addProgressListener(reporter, OperationType.TASK);
+        if (initScript != null) {
+          launcher.addArguments("--init-script", initScript.getAbsolutePath());
         }
+        if (compileProgressReporter != null) {
+          launcher.addProgressListener(compileProgressReporter, OperationType.TASK);
+        }
+        // run method is blocking
+        launcher.run();
       } catch (GradleConnectionException | IllegalStateException e) {
         String message = String.join("\n", ExceptionUtils.getRootCauseStackTraceList(e));
         reporter.sendError("Error running main class: " + message);
@@ -505,6 +564,75 @@ public class GradleApiConnector {
     return statusCode;
   }
 
+  /**
+   * Tell the daemons of the given project which paths have changed, so their virtual file
+   * system is kept up to date rather than snapshotting the changed files on the next build.
+   * This isn't a build so it doesn't wait for the operations running on the project.
+   * Gradle versions before 6.1 don't support this and are only tried once.
+   *
+   * @param projectUri URI of the project whose daemons to notify.
+   * @param changedPaths the absolute paths that have changed.
+   */
+  public void notifyDaemonsAboutChangedPaths(URI projectUri, List<Path> changedPaths) {
+    File project = new File(projectUri);
+    if (changedPaths.isEmpty() || changedPathsUnsupported.contains(project)) {
+      return;
+    }
+    try (ProjectConnection connection = getGradleConnector(project).connect()) {
+      connection.notifyDaemonsAboutChangedPaths(changedPaths);
+    } catch (UnsupportedVersionException e) {
+      changedPathsUnsupported.add(project);
+      LOGGER.fine("Gradle daemons of " + project + " can't be notified about changed paths: "
+          + e.getMessage());
+    } catch (GradleConnectionException | IllegalStateException e) {
+      LOGGER.warning("Failed to notify Gradle daemons about changed paths: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Should builds use the configuration cache, which needs Gradle 6.6.
+   * Only used when the client opts in as builds with plugins that don't support it fail.
+   */
+  private boolean useConfigurationCache(String gradleVersion) {
+    return Boolean.TRUE.equals(preferenceManager.getPreferences().getUseConfigurationCache())
+        && gradleVersion != null
+        && GradleVersion.version(gradleVersion).compareTo(GradleVersion.version("6.6")) >= 0;
+  }
+
+  /**
+   * The settings that decide whether an operation can use a running daemon.
+   */
+  private record DaemonSettings(File javaHome, List<String> jvmArguments) {
+  }
+
+  private List<String> getGradleJvmArguments() {
+    List<String> jvmArguments = preferenceManager.getPreferences().getGradleJvmArguments();
+    return jvmArguments == null ? List.of() : jvmArguments;
+  }
+
+  /**
+   * Warn when an operation is about to use a Java home or JVM arguments that differ from
+   * the first operation on the root, as Gradle will then start another daemon for it
+   * instead of reusing the warm one.  Each mismatch is only reported once.
+   */
+  private void checkDaemonSettings(File project, String operationName,
+      List<String> jvmArguments) {
+    File javaHome = Utils.getGradleJavaHomeFile(
+        preferenceManager.getPreferences().getGradleJavaHome());
+    if (javaHome != null && !javaHome.exists()) {
+      javaHome = null;
+    }
+    DaemonSettings settings = new DaemonSettings(javaHome,
+        jvmArguments == null ? List.of() : List.copyOf(jvmArguments));
+    DaemonSettings first = daemonSettings.putIfAbsent(project, settings);
+    if (first != null && !first.equals(settings) && reportedDaemonSettings.add(settings)) {
+      LOGGER.warning(String.format("Gradle operation '%s' on '%s' uses Java home %s and JVM"
+          + " arguments %s but earlier operations used %s and %s, so it can't share their"
+          + " daemon.", operationName, project, settings.javaHome(), settings.jvmArguments(),
+          first.javaHome(), first.jvmArguments()));
+    }
+  }
+
   /**
    * shutdown the connections.
    */
@@ -0,0 +1,96 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.gradle;
+
+import static com.microsoft.java.bs.core.Launcher.LOGGER;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import org.gradle.tooling.BuildCancelledException;
+import org.gradle.tooling.CancellationToken;
+
+import com.microsoft.java.bs.core.internal.log.BspTraceEntity;
+
+/**
+ * Runs the Gradle operations of each root one at a time, in the order they were requested.
+ * A daemon can only run one build at a time so overlapping operations on the same root
+ * would make Gradle start another daemon rather than reuse the warm one.
+ */
+public class GradleOperationScheduler {
+
+  // how often a queued operation checks whether it has been cancelled.
+  private static final long POLL_MILLIS = 100;
+
+  private final Map<File, ReentrantLock> rootLocks = new ConcurrentHashMap<>();
+
+  /**
+   * Run an operation once all earlier operations on the same root have finished.
+   *
+   * @param <T> the result type of the operation
+   * @param root the root dir of the Gradle build
+   * @param operationName the name of the operation for logging
+   * @param cancellationToken the Gradle cancellation token
+   * @param operation the operation
+   * @return the result of the operation
+   */
+  public <T> T run(File root, String operationName, CancellationToken cancellationToken,
+      Supplier<T> operation) {
+    ReentrantLock lock = rootLocks.computeIfAbsent(root, r -> new ReentrantLock(true));
+    acquire(lock, root, operationName, cancellationToken);
+    try {
+      return operation.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void acquire(ReentrantLock lock, File root, String operationName,
+      CancellationToken cancellationToken) {
+    try {
+      // a timed tryLock honours the fairness of the lock, an untimed one would barge ahead
+      // of the operations that are already queued.
+      if (lock.tryLock(0, TimeUnit.MILLISECONDS)) {
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BuildCancelledException("Gradle operation '" + operationName
+          + "' was interrupted while queued.", e);
+    }
+    long startTime = System.nanoTime();
+    int queueLength = lock.getQueueLength() + 1;
+    BspTraceEntity queuedEntity = new BspTraceEntity.Builder()
+        .operationName("gradle-queue")
+        .build();
+    LOGGER.log(Level.INFO, String.format(
+        "Queued Gradle operation '%s' on '%s' behind %d other(s).",
+        operationName, root, queueLength), queuedEntity);
+    try {
+      while (!lock.tryLock(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (cancellationToken != null && cancellationToken.isCancellationRequested()) {
+          throw new BuildCancelledException("Gradle operation '" + operationName
+              + "' was cancelled while queued.");
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BuildCancelledException("Gradle operation '" + operationName
+          + "' was interrupted while queued.", e);
+    }
+    long waitTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    BspTraceEntity entity = new BspTraceEntity.Builder()
+        .operationName("gradle-queue")
+        .duration(String.valueOf(waitTime))
+        .build();
+    LOGGER.log(Level.INFO, String.format(
+        "Gradle operation '%s' on '%s' waited %d ms, %d operation(s) still queued.",
+        operationName, root, waitTime, lock.getQueueLength()), entity);
+  }
+}
@@ -3,17 +3,27 @@
 
 package com.microsoft.java.bs.core.internal.gradle;
 
+import static com.microsoft.java.bs.core.Launcher.LOGGER;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 import org.gradle.tooling.BuildAction;
@@ -48,6 +58,18 @@ public class Utils {
    */
   private static final String GRADLE_USER_HOME = "GRADLE_USER_HOME";
 
+  /**
+   * The resource dir of the plugin jars bundled with the server.
+   */
+  private static final String BUNDLED_PLUGIN_DIR = "bundled-plugin";
+
+  /**
+   * The plugin jars bundled with the server, extracted to the cache dir on first use.
+   * Empty if they couldn't be extracted or weren't bundled, such as when the server is run
+   * from an IDE without its resources being processed.
+   */
+  private static volatile List<File> bundledPluginJars;
+
   /**
    * Is the OS Windows.
    */
@@ -408,8 +430,89 @@ public class Utils {
   }
 
   /**
-   * Create a temporary init.gradle script.  If contents is null then file isn't created.
-   * Caller is responsible for file deletion.
+   * Get the dir the server caches files in, which can be set with the
+   * {@code bsp.gradle.cacheDir} system property.
+   *
+   * @return the cache dir, which may not exist yet
+   */
+  public static File getCacheDir() {
+    String cacheDir = System.getProperty("bsp.gradle.cacheDir");
+    if (cacheDir != null && !cacheDir.isEmpty()) {
+      return new File(cacheDir);
+    }
+    return Paths.get(System.getProperty("user.home"), ".cache", "build-server-for-gradle")
+        .toFile();
+  }
+
+  /**
+   * Get the bundled plugin jars, extracting them again if they have been deleted since
+   * they were last extracted e.g. by clearing the cache dir.
+   */
+  private static List<File> getBundledPluginJars() {
+    List<File> jars = bundledPluginJars;
+    if (jars == null || !jars.stream().allMatch(File::isFile)) {
+      synchronized (Utils.class) {
+        jars = bundledPluginJars;
+        if (jars == null || !jars.stream().allMatch(File::isFile)) {
+          jars = extractBundledPluginJars();
+          bundledPluginJars = jars;
+        }
+      }
+    }
+    return jars;
+  }
+
+  /**
+   * Extract the bundled plugin and model jars to a dir in the cache named after their
+   * contents, so different server versions don't overwrite each other's jars and an
+   * existing extraction can be reused without checking it.
+   */
+  private static List<File> extractBundledPluginJars() {
+    List<String> names = List.of("plugin.jar", "model.jar");
+    try {
+      List<byte[]> contents = new ArrayList<>();
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String name : names) {
+        try (InputStream in = Utils.class.getResourceAsStream(
+            "/" + BUNDLED_PLUGIN_DIR + "/" + name)) {
+          if (in == null) {
+            LOGGER.fine("Plugin jars aren't bundled, they will be resolved from repositories");
+            return List.of();
+          }
+          byte[] bytes = in.readAllBytes();
+          digest.update(bytes);
+          contents.add(bytes);
+        }
+      }
+      String hash = HexFormat.of().formatHex(digest.digest(), 0, 8);
+      Path dir = getCacheDir().toPath().resolve(BUNDLED_PLUGIN_DIR).resolve(hash);
+      Files.createDirectories(dir);
+      List<File> jars = new ArrayList<>();
+      for (int i = 0; i < names.size(); i++) {
+        Path jar = dir.resolve(names.get(i));
+        if (!Files.isRegularFile(jar) || Files.size(jar) != contents.get(i).length) {
+          // write then move so other servers never see a partly written jar.
+          Path tempFile = Files.createTempFile(dir, names.get(i), ".tmp");
+          Files.write(tempFile, contents.get(i));
+          Files.move(tempFile, jar, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+        }
+        jars.add(jar.toFile());
+      }
+      return jars;
+    } catch (IOException | NoSuchAlgorithmException e) {
+      LOGGER.log(Level.WARNING, "Failed to extract the bundled plugin jars, they will be"
+          + " resolved from repositories", e);
+      return List.of();
+    }
+  }
+
+  /**
+   * Get the init.gradle script with the given contents, creating it if needed.
+   * The script is named after a hash of its contents in the cache dir and is reused by
+   * every build with the same contents.  A build's init script paths are part of the key
+   * of its configuration cache entry so a new path for every build would never hit.
+   * The script must not be deleted as other builds may be using it.
    *
    * @param prefix filename prefix
    * @param contents contents of script.
@@ -420,13 +523,21 @@ public class Utils {
       return null;
     }
     try {
-      File initScriptFile = File.createTempFile(prefix, ".gradle");
-      if (!initScriptFile.getParentFile().exists()) {
-        initScriptFile.getParentFile().mkdirs();
+      byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+      String hash = HexFormat.of().formatHex(
+          MessageDigest.getInstance("SHA-256").digest(bytes), 0, 8);
+      Path dir = getCacheDir().toPath().resolve("init-scripts");
+      Path initScript = dir.resolve(prefix + "-" + hash + ".gradle");
+      if (!Files.isRegularFile(initScript)) {
+        Files.createDirectories(dir);
+        // write then move so concurrent builds never see a partly written script.
+        Path tempFile = Files.createTempFile(dir, prefix, ".tmp");
+        Files.write(tempFile, bytes);
+        Files.move(tempFile, initScript, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
       }
-      Files.write(initScriptFile.toPath(), contents.getBytes());
-      return initScriptFile;
-    } catch (IOException e) {
+      return initScript.toFile();
+    } catch (IOException | NoSuchAlgorithmException e) {
       throw new IllegalStateException("Error creating init file", e);
     }
   }
@@ -540,6 +651,41 @@ public class Utils {
     return createInitScript(workspaceDir, javaSemanticDbVersion, scalaSemanticDbVersion, false);
   }
 
+  /**
+   * Get the initscript block that puts the plugin on the classpath.
+   * This is the bundled jars if there are any, as resolving the plugin from a repository
+   * costs metadata checks on every build and fails when offline.
+   */
+  private static String getPluginClasspath() {
+    List<File> pluginJars = getBundledPluginJars();
+    if (!pluginJars.isEmpty()) {
+      String files = pluginJars.stream()
+          .map(jar -> "'" + jar.getAbsolutePath().replace("\\", "\\\\").replace("'", "\\'")
+              + "'")
+          .collect(Collectors.joining(", "));
+      return """
+          dependencies {
+              classpath files($files)
+            }"""
+          .replace("$files", files);
+    }
+    return """
+        repositories {
+            mavenLocal() // included so tests run and users can publish their own version
+            mavenCentral()
+            maven {
+              url = 'https://repo.gradle.org/gradle/libs-releases'
+            }
+          }
+
+          dependencies {
+            classpath '$group:$artifact:$version'
+          }"""
+        .replace("$group", BuildInfo.groupId)
+        .replace("$artifact", BuildInfo.pluginArtifactId)
+        .replace("$version", BuildInfo.version);
+  }
+
   /**
    * Create a Gradle init script to apply plugins and settings.
    *
@@ -594,26 +740,14 @@ public class Utils {
 
     return """
         initscript {
-          repositories {
-            mavenLocal() // included so tests run and users can publish their own version
-            mavenCentral()
-            maven {
-              url = 'https://repo.gradle.org/gradle/libs-releases'
-            }
-          }
-
-          dependencies {
-            classpath '$group:$artifact:$version'
-          }
+          $pluginClasspath
         }
         allprojects { proj ->
           $bspPluginSetup
 
           $semanticDbPluginSetup
         }"""
-        .replace("$group", BuildInfo.groupId)
-        .replace("$artifact", BuildInfo.pluginArtifactId)
-        .replace("$version", BuildInfo.version)
+        .replace("$pluginClasspath", getPluginClasspath())
         .replace("$bspPluginSetup", bspPluginSetup)
         .replace("$semanticDbPluginSetup", semanticDbPluginSetup);
   }
@@ -8,9 +8,11 @@ import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -28,6 +30,11 @@ import com.microsoft.java.bs.gradle.model.ScalaExtension;
  */
 public class BuildTargetChangeInfo {
 
+  // the most elements of a collection to list in a difference.
+  private static final int DIFF_LIMIT = Integer.getInteger("bsp.gradle.changeDiffLimit", 20);
+
+  private static final DifferenceMap DIFFERENCE_MAP = createDifferenceMap();
+
   private final BuildTargetIdentifier btId;
   private final GradleSourceSet oldSourceSet;
   private final GradleSourceSet newSourceSet;
@@ -82,6 +89,24 @@ public class BuildTargetChangeInfo {
     return btId;
   }
 
+  /**
+   * Get the old source set.
+   *
+   * @return the source set before the change or null if the target was added
+   */
+  public GradleSourceSet getOldSourceSet() {
+    return oldSourceSet;
+  }
+
+  /**
+   * Get the new source set.
+   *
+   * @return the source set after the change or null if the target was removed
+   */
+  public GradleSourceSet getNewSourceSet() {
+    return newSourceSet;
+  }
+
   private static class Difference<S, T> {
     private final String name;
     private final Function<S, T> accessor;
@@ -136,62 +161,16 @@ public class BuildTargetChangeInfo {
     }
   }
 
-  private static String getCollectionDiff(Iterator<?> oldIter, Iterator<?> newIter,
-        DifferenceMap diffMap) {
-    StringBuilder diffs = new StringBuilder();
-    int i = 0;
-    boolean first = true;
-    while (oldIter.hasNext() && newIter.hasNext()) {
-      Object oldObj = oldIter.next();
-      Object newObj = newIter.next();
-      String diff = getDifference(Integer.toString(i), oldObj, newObj, diffMap);
-      if (diff != null) {
-        if (!first) {
-          diffs.append(", ");
-        }
-        diffs.append(diff);
-        first = false;
-      }
-      i++;
-    }
-    return diffs.toString();
-  }
-
   private static String getDifference(String name, Object oldObject, Object newObject,
       DifferenceMap diffMap) {
 
     if (!Objects.equals(oldObject, newObject)) {
       final String diff;
       if (oldObject == null || newObject == null) {
-        diff = oldObject + " -> " + newObject;
+        diff = describe(oldObject) + " -> " + describe(newObject);
       } else {
         List<? extends Difference<?, ?>> diffs = diffMap.getDifferences(oldObject.getClass());
-        if (diffs == null) {
-          if (newObject instanceof Map<?, ?>) {
-            oldObject = ((Map<?, ?>) oldObject).entrySet();
-            newObject = ((Map<?, ?>) newObject).entrySet();
-          }
-          if (newObject instanceof Collection<?>) {
-            Collection<?> oldCollection = (Collection<?>) oldObject;
-            Collection<?> newCollection = (Collection<?>) newObject;
-            if (oldCollection.size() != newCollection.size()) {
-              return oldObject + " -> " + newObject;
-            }
-            diff = getCollectionDiff(oldCollection.iterator(), newCollection.iterator(), diffMap);
-          } else if (newObject instanceof Map.Entry<?, ?>) {
-            Map.Entry<?, ?> oldNode = (Map.Entry<?, ?>) oldObject;
-            Map.Entry<?, ?> newNode = (Map.Entry<?, ?>) newObject;
-            String keyDiff = getDifference("key:", oldNode.getKey(), newNode.getKey(), diffMap);
-            if (keyDiff != null) {
-              diff = keyDiff;
-            } else {
-              diff = getDifference("key:" + oldNode.getKey() + " value",
-                  oldNode.getValue(), newNode.getValue(), diffMap);
-            }
-          } else {
-            diff = oldObject + " -> " + newObject;
-          }
-        } else {
+        if (diffs != null) {
           final Object oldValue = oldObject;
           final Object newValue = newObject;
           diff = diffs.stream()
@@ -202,11 +181,21 @@ public class BuildTargetChangeInfo {
               })
               .filter(Objects::nonNull)
               .collect(Collectors.joining(", "));
+        } else if (oldObject instanceof Map<?, ?> oldMap && newObject instanceof Map<?, ?> newMap) {
+          diff = getMapDiff(oldMap, newMap, diffMap);
+        } else if (oldObject instanceof List<?> oldList && newObject instanceof List<?> newList
+            && oldList.size() == newList.size()) {
+          diff = getListDiff(oldList, newList, diffMap);
+        } else if (oldObject instanceof Collection<?> oldCollection
+            && newObject instanceof Collection<?> newCollection) {
+          diff = getCollectionDiff(oldCollection, newCollection);
+        } else {
+          diff = describe(oldObject) + " -> " + describe(newObject);
         }
       }
       if (diff == null || diff.isEmpty()) {
-        String oldInfo = oldObject.getClass() + " " + oldObject;
-        String newInfo = newObject.getClass() + " " + newObject;
+        String oldInfo = oldObject.getClass() + " " + describe(oldObject);
+        String newInfo = newObject.getClass() + " " + describe(newObject);
         return name + " (Failed to find diff " + oldInfo + " -> " + newInfo + ")";
       }
       return name + ": (" + diff + ")";
@@ -214,6 +203,115 @@ public class BuildTargetChangeInfo {
     return null;
   }
 
+  /**
+   * the elements added and removed, found with hash sets so the cost is linear in the
+   * size of the collections and doesn't depend on their iteration order.
+   */
+  private static String getCollectionDiff(Collection<?> oldCollection,
+      Collection<?> newCollection) {
+    Set<?> oldElements = new LinkedHashSet<>(oldCollection);
+    Set<?> newElements = new LinkedHashSet<>(newCollection);
+    List<Object> added = new ArrayList<>();
+    for (Object element : newElements) {
+      if (!oldElements.contains(element)) {
+        added.add(element);
+      }
+    }
+    List<Object> removed = new ArrayList<>();
+    for (Object element : oldElements) {
+      if (!newElements.contains(element)) {
+        removed.add(element);
+      }
+    }
+    if (added.isEmpty() && removed.isEmpty()) {
+      // only the order or the number of duplicates has changed.
+      return "reordered";
+    }
+    List<String> diffs = new ArrayList<>();
+    if (!added.isEmpty()) {
+      diffs.add("added: " + describe(added));
+    }
+    if (!removed.isEmpty()) {
+      diffs.add("removed: " + describe(removed));
+    }
+    return String.join(", ", diffs);
+  }
+
+  private static String getListDiff(List<?> oldList, List<?> newList, DifferenceMap diffMap) {
+    List<String> diffs = new ArrayList<>();
+    int count = 0;
+    for (int i = 0; i < oldList.size(); i++) {
+      String diff = getDifference(Integer.toString(i), oldList.get(i), newList.get(i), diffMap);
+      if (diff != null) {
+        count++;
+        if (diffs.size() < DIFF_LIMIT) {
+          diffs.add(diff);
+        }
+      }
+    }
+    if (count > diffs.size()) {
+      diffs.add("... " + (count - diffs.size()) + " more");
+    }
+    return String.join(", ", diffs);
+  }
+
+  private static String getMapDiff(Map<?, ?> oldMap, Map<?, ?> newMap, DifferenceMap diffMap) {
+    List<Object> added = new ArrayList<>();
+    for (Object key : newMap.keySet()) {
+      if (!oldMap.containsKey(key)) {
+        added.add(key);
+      }
+    }
+    List<Object> removed = new ArrayList<>();
+    List<String> changed = new ArrayList<>();
+    int changedCount = 0;
+    for (Map.Entry<?, ?> entry : oldMap.entrySet()) {
+      Object key = entry.getKey();
+      if (!newMap.containsKey(key)) {
+        removed.add(key);
+      } else {
+        String diff = getDifference(String.valueOf(key), entry.getValue(), newMap.get(key),
+            diffMap);
+        if (diff != null) {
+          changedCount++;
+          if (changed.size() < DIFF_LIMIT) {
+            changed.add(diff);
+          }
+        }
+      }
+    }
+    List<String> diffs = new ArrayList<>(changed);
+    if (changedCount > changed.size()) {
+      diffs.add("... " + (changedCount - changed.size()) + " more changed");
+    }
+    if (!added.isEmpty()) {
+      diffs.add("added: " + describe(added));
+    }
+    if (!removed.isEmpty()) {
+      diffs.add("removed: " + describe(removed));
+    }
+    return String.join(", ", diffs);
+  }
+
+  /**
+   * the string form of a value, listing no more than the limit of a collection's elements.
+   */
+  private static String describe(Object value) {
+    if (value instanceof Map<?, ?> map) {
+      value = map.entrySet();
+    }
+    if (!(value instanceof Collection<?> collection) || collection.size() <= DIFF_LIMIT) {
+      return String.valueOf(value);
+    }
+    StringBuilder sb = new StringBuilder("[");
+    Iterator<?> iter = collection.iterator();
+    for (int i = 0; i < DIFF_LIMIT; i++) {
+      sb.append(iter.next()).append(", ");
+    }
+    sb.append("... ").append(collection.size() - DIFF_LIMIT).append(" more]");
+    return sb.toString();
+  }
+
   /**
    * Get the minimal differences of the 2 source sets.
    *
@@ -223,6 +321,10 @@ public class BuildTargetChangeInfo {
     if (oldSourceSet == null || newSourceSet == null) {
       return null;
     }
+    return getDifference("GradleSourceSet", oldSourceSet, newSourceSet, DIFFERENCE_MAP);
+  }
+
+  private static DifferenceMap createDifferenceMap() {
     List<Differences<?>> diffs = new ArrayList<>();
     diffs.add(Differences.of(GradleSourceSet.class, List.of(
         Difference.of("GradleVersion", GradleSourceSet::getGradleVersion),
@@ -299,7 +401,6 @@ public class BuildTargetChangeInfo {
         Difference.of("Uri", Artifact::getUri),
         Difference.of("Classifier", Artifact::getClassifier))));
 
-    DifferenceMap diffMap = new DifferenceMap(diffs);
-    return getDifference("GradleSourceSet", oldSourceSet, newSourceSet, diffMap);
+    return new DifferenceMap(diffs);
   }
 }
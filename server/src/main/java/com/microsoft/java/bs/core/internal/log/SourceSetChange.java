@@ -0,0 +1,65 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.log;
+
+import java.lang.reflect.Type;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.annotations.JsonAdapter;
+
+/**
+ * The data of a changed build target event, with the "SourceSetChange" data kind.
+ * It's written to JSON as the difference of the old and new source sets, which is only
+ * worked out when the event is sent or logged.
+ */
+@JsonAdapter(SourceSetChange.Serializer.class)
+public class SourceSetChange {
+
+  private final BuildTargetChangeInfo changeInfo;
+
+  private volatile String difference;
+
+  /**
+   * Constructor.
+   *
+   * @param changeInfo the change of the build target
+   */
+  public SourceSetChange(BuildTargetChangeInfo changeInfo) {
+    this.changeInfo = changeInfo;
+  }
+
+  /**
+   * Get the differences of the old and new source sets.
+   *
+   * @return a String representing just the fields of what's different
+   */
+  public String getDifference() {
+    String current = difference;
+    if (current == null) {
+      current = changeInfo.getDifference();
+      difference = current;
+    }
+    return current;
+  }
+
+  @Override
+  public String toString() {
+    return getDifference();
+  }
+
+  /**
+   * Writes the difference as a JSON string, the same as when it was set directly as data.
+   * It's only sent to the client so reading falls back to Gson's default.
+   */
+  static class Serializer implements JsonSerializer<SourceSetChange> {
+    @Override
+    public JsonElement serialize(SourceSetChange src, Type typeOfSrc,
+        JsonSerializationContext context) {
+      return new JsonPrimitive(src.getDifference());
+    }
+  }
+}
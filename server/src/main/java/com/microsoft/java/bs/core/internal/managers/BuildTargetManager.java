@@ -6,10 +6,13 @@ package com.microsoft.java.bs.core.internal.managers;
 import java.io.File;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +28,7 @@ import ch.epfl.scala.bsp4j.extended.KotlinBuildTarget;
 
 import com.microsoft.java.bs.core.internal.log.BuildTargetChangeInfo;
 import com.microsoft.java.bs.core.internal.model.GradleBuildTarget;
+import com.microsoft.java.bs.core.internal.utils.PathTrie;
 import com.microsoft.java.bs.gradle.model.BuildTargetDependency;
 import com.microsoft.java.bs.gradle.model.GradleSourceSet;
 import com.microsoft.java.bs.gradle.model.GradleSourceSets;
@@ -32,7 +36,10 @@ import com.microsoft.java.bs.gradle.model.JavaExtension;
 import com.microsoft.java.bs.gradle.model.KotlinExtension;
 import com.microsoft.java.bs.gradle.model.ScalaExtension;
 import com.microsoft.java.bs.gradle.model.SupportedLanguages;
+import com.microsoft.java.bs.gradle.model.actions.GetSourceSetsAction;
 import com.microsoft.java.bs.gradle.model.impl.DefaultBuildTargetDependency;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSet;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSets;
 
 import ch.epfl.scala.bsp4j.BuildTarget;
 import ch.epfl.scala.bsp4j.BuildTargetCapabilities;
@@ -47,14 +54,18 @@ public class BuildTargetManager {
 
   private volatile Map<BuildTargetIdentifier, GradleBuildTarget> cache;
 
-  private volatile Map<Path, BuildTargetIdentifier> sourceDirsMap;
+  private volatile PathTrie<BuildTargetIdentifier> sourceDirsTrie;
+
+  // project and build root dirs -> the root dir of the build they belong to.
+  private volatile PathTrie<File> buildRootsTrie;
 
   /**
    * constructor.
    */
   public BuildTargetManager() {
     this.cache = new HashMap<>();
-    this.sourceDirsMap = new HashMap<>();
+    this.sourceDirsTrie = PathTrie.empty();
+    this.buildRootsTrie = PathTrie.empty();
   }
 
   /**
@@ -97,13 +108,76 @@ public class BuildTargetManager {
     makeDisplayNameUnique(newCache.values(), displayNameMaker);
     updateBuildTargetDependencies(newCache.values(), dependencyToBuildTargetId);
 
-    this.sourceDirsMap = calculateSourceDirsMap(newCache.values());
+    // hash the source sets as they arrive, the next store compares its own against these.
+    for (GradleBuildTarget buildTarget : newCache.values()) {
+      buildTarget.getSourceSetHash();
+    }
+    this.sourceDirsTrie = calculateSourceDirsTrie(newCache.values());
+    this.buildRootsTrie = calculateBuildRootsTrie(newCache.values());
 
     Map<BuildTargetIdentifier, GradleBuildTarget> oldCache = cache;
     this.cache = newCache;
     return calculateChanges(oldCache, newCache);
   }
 
+  /**
+   * Store the refreshed source sets of some projects and keep the source sets of all the
+   * other projects.
+   *
+   * @param gradleSourceSets the new, unlinked, source sets of the refreshed projects.
+   * @param projectDirs the dirs of the refreshed projects.
+   * @return A list containing identifiers of changed build targets.
+   */
+  public List<BuildTargetChangeInfo> storeProjects(GradleSourceSets gradleSourceSets,
+      Set<File> projectDirs, Function<GradleSourceSet, String> displayNameMaker) {
+    List<GradleSourceSet> sourceSets = new ArrayList<>();
+    for (GradleBuildTarget buildTarget : cache.values()) {
+      GradleSourceSet sourceSet = buildTarget.getSourceSet();
+      if (!projectDirs.contains(sourceSet.getProjectDir())) {
+        // copy so relinking can't alter the source sets of the current cache.
+        sourceSets.add(new DefaultGradleSourceSet(sourceSet));
+      }
+    }
+    sourceSets.addAll(gradleSourceSets.getGradleSourceSets());
+    GetSourceSetsAction.linkSourceSets(sourceSets);
+    return store(new DefaultGradleSourceSets(sourceSets), displayNameMaker);
+  }
+
+  /**
+   * Find the projects that have a build target dependency on any of the given projects,
+   * directly or through other projects.
+   * Their classpaths reference the outputs of the projects they depend on.
+   *
+   * @param projectDirs the project dirs to find the dependents of
+   * @return the project dirs of the dependent projects
+   */
+  public Set<File> getDependentProjectDirs(Set<File> projectDirs) {
+    // project dir -> dirs of the projects that depend on it directly.
+    Map<String, Set<File>> directDependents = new HashMap<>();
+    for (GradleBuildTarget buildTarget : cache.values()) {
+      GradleSourceSet sourceSet = buildTarget.getSourceSet();
+      Set<BuildTargetDependency> dependencies = sourceSet.getBuildTargetDependencies();
+      if (dependencies != null) {
+        for (BuildTargetDependency dependency : dependencies) {
+          directDependents.computeIfAbsent(dependency.getProjectDir(), dir -> new HashSet<>())
+              .add(sourceSet.getProjectDir());
+        }
+      }
+    }
+    Set<File> dependents = new HashSet<>();
+    Deque<File> pending = new ArrayDeque<>(projectDirs);
+    while (!pending.isEmpty()) {
+      File projectDir = pending.pop();
+      for (File dependent : directDependents.getOrDefault(projectDir.getAbsolutePath(),
+          Collections.emptySet())) {
+        if (!projectDirs.contains(dependent) && dependents.add(dependent)) {
+          pending.push(dependent);
+        }
+      }
+    }
+    return dependents;
+  }
+
   /**
    * If the build target data has changed in any way then the BSP client needs to be told.
    *
@@ -123,11 +197,13 @@ public class BuildTargetManager {
       GradleBuildTarget oldTarget = oldCache.get(newBtId);
       // only compare the source set instance, which is the result
       // returned from the gradle plugin.
+      // equal hashes mean equal source sets so only different hashes need the deep compare.
       if (oldTarget == null) {
         BuildTargetChangeInfo changeInfo = new BuildTargetChangeInfo(newBtId,
             null, newTarget.getSourceSet());
         changedTargets.add(changeInfo);
-      } else if (!Objects.equals(oldTarget.getSourceSet(), newTarget.getSourceSet())) {
+      } else if (!oldTarget.getSourceSetHash().equals(newTarget.getSourceSetHash())
+          && !Objects.equals(oldTarget.getSourceSet(), newTarget.getSourceSet())) {
         BuildTargetChangeInfo changeInfo = new BuildTargetChangeInfo(newBtId,
             oldTarget.getSourceSet(), newTarget.getSourceSet());
         changedTargets.add(changeInfo);
@@ -179,12 +255,24 @@ public class BuildTargetManager {
   }
 
   /**
-   * get the map of build target source dirs to their build target.
+   * get the index of build target source, generated source and resource dirs
+   * to their build targets.
    *
-   * @return map of source dirs to respective build target
+   * @return the immutable index of dirs to their build targets
    */
-  public Map<Path, BuildTargetIdentifier> getSourceDirsMap() {
-    return new HashMap<>(sourceDirsMap);
+  public PathTrie<BuildTargetIdentifier> getSourceDirsTrie() {
+    return sourceDirsTrie;
+  }
+
+  /**
+   * get the root dir of the Gradle build, such as an included build, that a path is in.
+   *
+   * @param path the path of a file or dir
+   * @return the innermost build root dir containing the path or null if it isn't in a build
+   */
+  public File getBuildRootDir(Path path) {
+    List<File> rootDirs = buildRootsTrie.getValues(path);
+    return rootDirs.isEmpty() ? null : rootDirs.get(rootDirs.size() - 1);
   }
 
   private URI getBuildTargetUri(URI projectUri, String sourceSetName) {
@@ -311,18 +399,46 @@ public class BuildTargetManager {
   }
 
   /**
-   * create a map of all known sourceDirs to the build target they belong to.
+   * create an index of all known source, generated source and resource dirs
+   * to the build targets they belong to.
    */
-  private Map<Path, BuildTargetIdentifier> calculateSourceDirsMap(
+  private PathTrie<BuildTargetIdentifier> calculateSourceDirsTrie(
       Collection<GradleBuildTarget> buildTargets) {
-    Map<Path, BuildTargetIdentifier> sourceDirsMap = new HashMap<>();
+    PathTrie.Builder<BuildTargetIdentifier> builder = PathTrie.builder();
     for (GradleBuildTarget buildTarget : buildTargets) {
-      Set<File> sourceDirs = buildTarget.getSourceSet().getSourceDirs();
+      GradleSourceSet sourceSet = buildTarget.getSourceSet();
       BuildTargetIdentifier btId = buildTarget.getBuildTarget().getId();
-      for (File sourceDir : sourceDirs) {
-        sourceDirsMap.put(sourceDir.toPath(), btId);
+      addDirs(builder, sourceSet.getSourceDirs(), btId);
+      addDirs(builder, sourceSet.getGeneratedSourceDirs(), btId);
+      addDirs(builder, sourceSet.getResourceDirs(), btId);
+    }
+    return builder.build();
+  }
+
+  /**
+   * create an index of all known project and build root dirs to the root dir of their build.
+   */
+  private PathTrie<File> calculateBuildRootsTrie(Collection<GradleBuildTarget> buildTargets) {
+    PathTrie.Builder<File> builder = PathTrie.builder();
+    for (GradleBuildTarget buildTarget : buildTargets) {
+      GradleSourceSet sourceSet = buildTarget.getSourceSet();
+      File rootDir = sourceSet.getRootDir();
+      if (rootDir != null) {
+        builder.put(rootDir.toPath(), rootDir);
+        if (sourceSet.getProjectDir() != null) {
+          builder.put(sourceSet.getProjectDir().toPath(), rootDir);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  private void addDirs(PathTrie.Builder<BuildTargetIdentifier> builder, Set<File> dirs,
+      BuildTargetIdentifier btId) {
+    if (dirs != null) {
+      for (File dir : dirs) {
+        builder.put(dir.toPath(), btId);
       }
     }
-    return sourceDirsMap;
   }
 }
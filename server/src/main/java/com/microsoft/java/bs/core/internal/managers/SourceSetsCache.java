@@ -0,0 +1,174 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.managers;
+
+import static com.microsoft.java.bs.core.Launcher.LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import com.microsoft.java.bs.core.BuildInfo;
+import com.microsoft.java.bs.core.internal.model.BuildFingerprint;
+import com.microsoft.java.bs.core.internal.model.Preferences;
+import com.microsoft.java.bs.gradle.model.GradleSourceSets;
+
+/**
+ * Persists the Gradle source sets in the workspace so a restarted server can answer
+ * requests without waiting on Gradle.
+ * The cache is only used if none of the build files have changed since it was written.
+ */
+public class SourceSetsCache {
+
+  private static final String CACHE_DIR = ".gradle/bsp";
+
+  private static final String CACHE_FILE = "sourcesets.bin";
+
+  // only the model classes, and the JDK classes they are made of, can be read back.
+  private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+      "maxdepth=50;java.lang.*;java.util.*;java.io.File;java.net.URI;"
+      + "com.microsoft.java.bs.gradle.model.**;"
+      + "com.microsoft.java.bs.core.internal.model.BuildFingerprint;!*");
+
+  private final PreferenceManager preferenceManager;
+
+  /**
+   * constructor.
+   *
+   * @param preferenceManager the preferences that also affect the source sets
+   */
+  public SourceSetsCache(PreferenceManager preferenceManager) {
+    this.preferenceManager = preferenceManager;
+  }
+
+  /**
+   * Load the cached source sets.
+   *
+   * @return the source sets or null if there are none or they are out of date
+   */
+  public GradleSourceSets load() {
+    File cacheFile = getCacheFile();
+    if (cacheFile == null || !cacheFile.isFile()) {
+      return null;
+    }
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(cacheFile.toPath()));
+         ObjectInputStream ois = new ObjectInputStream(in)) {
+      ois.setObjectInputFilter(FILTER);
+      BuildFingerprint fingerprint = (BuildFingerprint) ois.readObject();
+      GradleSourceSets sourceSets = (GradleSourceSets) ois.readObject();
+      if (!fingerprint.equals(getFingerprint(sourceSets))) {
+        LOGGER.info("Cached source sets are out of date.");
+        return null;
+      }
+      return sourceSets;
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      LOGGER.warning("Failed to read cached source sets: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Save the source sets along with the fingerprint of the build that created them.
+   *
+   * @param sourceSets the source sets retrieved from Gradle
+   * @param fingerprint the fingerprint of the build files of the source sets
+   */
+  public void save(GradleSourceSets sourceSets, BuildFingerprint fingerprint) {
+    File cacheFile = getCacheFile();
+    if (cacheFile == null || fingerprint == null) {
+      return;
+    }
+    try {
+      Path dir = cacheFile.getParentFile().toPath();
+      Files.createDirectories(dir);
+      // write to a temp file first so a crash can't leave a half written cache.
+      Path tempFile = Files.createTempFile(dir, CACHE_FILE, ".tmp");
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile));
+           ObjectOutputStream oos = new ObjectOutputStream(out)) {
+        oos.writeObject(fingerprint);
+        oos.writeObject(sourceSets);
+      }
+      Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warning("Failed to write cached source sets: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Create the fingerprint of the current build files.
+   *
+   * @param sourceSets the source sets to find the project dirs from
+   * @return the fingerprint or null if there is no workspace
+   */
+  public BuildFingerprint getFingerprint(GradleSourceSets sourceSets) {
+    URI rootUri = preferenceManager.getRootUri();
+    if (rootUri == null) {
+      return null;
+    }
+    return BuildFingerprint.compute(new File(rootUri), sourceSets, getEnvironment());
+  }
+
+  /**
+   * Create the fingerprint of source sets loaded after an earlier fingerprint was taken,
+   * reusing the hashes of the build files the earlier fingerprint covers.
+   *
+   * @param sourceSets the loaded source sets
+   * @param earlier the fingerprint taken before the load, or null
+   * @return the fingerprint or null if there is no workspace
+   */
+  public BuildFingerprint getFingerprint(GradleSourceSets sourceSets,
+      BuildFingerprint earlier) {
+    URI rootUri = preferenceManager.getRootUri();
+    if (rootUri == null) {
+      return null;
+    }
+    if (earlier == null) {
+      return getFingerprint(sourceSets);
+    }
+    return BuildFingerprint.compute(new File(rootUri), sourceSets, earlier);
+  }
+
+  private File getCacheFile() {
+    if (Boolean.getBoolean("bsp.gradle.modelcache.disabled")) {
+      return null;
+    }
+    URI rootUri = preferenceManager.getRootUri();
+    if (rootUri == null) {
+      return null;
+    }
+    return new File(new File(rootUri), CACHE_DIR + File.separator + CACHE_FILE);
+  }
+
+  /**
+   * everything that isn't a build file but will change the source sets.
+   */
+  private String getEnvironment() {
+    Preferences preferences = preferenceManager.getPreferences();
+    return String.join("|", Arrays.asList(
+        BuildInfo.version,
+        String.valueOf(preferences.getGradleJavaHome()),
+        String.valueOf(preferences.isWrapperEnabled()),
+        String.valueOf(preferences.getGradleVersion()),
+        String.valueOf(preferences.getGradleHome()),
+        String.valueOf(preferences.getGradleUserHome()),
+        String.valueOf(preferences.getGradleArguments()),
+        String.valueOf(preferences.getGradleJvmArguments()),
+        String.valueOf(preferences.getJavaSemanticdbVersion()),
+        String.valueOf(preferences.getScalaSemanticdbVersion()),
+        String.valueOf(preferenceManager.getClientSupportedLanguages())
+    ));
+  }
+}
@@ -0,0 +1,252 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.microsoft.java.bs.gradle.model.GradleSourceSet;
+import com.microsoft.java.bs.gradle.model.GradleSourceSets;
+
+/**
+ * A fingerprint of everything that affects the Gradle source set model.
+ * Build wide files (settings, root build scripts, properties, version catalogs, the
+ * wrapper and buildSrc) are kept separate from the build scripts of individual projects.
+ */
+public class BuildFingerprint implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private static final String MISSING = "-";
+
+  private static final String[] BUILD_SCRIPTS = {
+    "build.gradle", "build.gradle.kts", "gradle.properties"
+  };
+
+  private static final String[] SETTINGS_SCRIPTS = {
+    "settings.gradle", "settings.gradle.kts"
+  };
+
+  private final String environment;
+
+  private final Map<String, String> buildFiles;
+
+  private final Map<String, String> projectFiles;
+
+  private BuildFingerprint(String environment, Map<String, String> buildFiles,
+      Map<String, String> projectFiles) {
+    this.environment = environment;
+    this.buildFiles = buildFiles;
+    this.projectFiles = projectFiles;
+  }
+
+  /**
+   * Fingerprint the build files used to create the source sets.
+   *
+   * @param rootDir the workspace root dir
+   * @param sourceSets the source sets to get the project and included build dirs from
+   * @param environment anything outside of the build files that affects the model
+   * @return the fingerprint
+   */
+  public static BuildFingerprint compute(File rootDir, GradleSourceSets sourceSets,
+      String environment) {
+    return compute(rootDir, sourceSets, environment, null);
+  }
+
+  /**
+   * Fingerprint the build files of source sets loaded after an earlier fingerprint was
+   * taken, keeping the earlier hashes of the files it covers.
+   * So a build file changed while the source sets were loading is still seen as changed,
+   * and only the build files of new projects and builds are read.
+   *
+   * @param rootDir the workspace root dir
+   * @param sourceSets the loaded source sets
+   * @param earlier the fingerprint taken before the source sets were loaded
+   * @return the fingerprint
+   */
+  public static BuildFingerprint compute(File rootDir, GradleSourceSets sourceSets,
+      BuildFingerprint earlier) {
+    return compute(rootDir, sourceSets, earlier.environment, earlier);
+  }
+
+  private static BuildFingerprint compute(File rootDir, GradleSourceSets sourceSets,
+      String environment, BuildFingerprint earlier) {
+    Map<String, String> earlierBuildFiles = earlier == null ? Map.of() : earlier.buildFiles;
+    Map<String, String> earlierProjectFiles = earlier == null ? Map.of()
+        : earlier.projectFiles;
+    Set<File> buildDirs = new LinkedHashSet<>();
+    buildDirs.add(rootDir);
+    Set<File> projectDirs = new LinkedHashSet<>();
+    for (GradleSourceSet sourceSet : sourceSets.getGradleSourceSets()) {
+      buildDirs.add(sourceSet.getRootDir());
+      projectDirs.add(sourceSet.getProjectDir());
+    }
+    projectDirs.removeAll(buildDirs);
+
+    Map<String, String> buildFiles = new TreeMap<>();
+    for (File buildDir : buildDirs) {
+      for (String name : SETTINGS_SCRIPTS) {
+        addFile(buildFiles, new File(buildDir, name), earlierBuildFiles);
+      }
+      for (String name : BUILD_SCRIPTS) {
+        addFile(buildFiles, new File(buildDir, name), earlierBuildFiles);
+      }
+      File gradleDir = new File(buildDir, "gradle");
+      addFile(buildFiles, new File(new File(gradleDir, "wrapper"), "gradle-wrapper.properties"),
+          earlierBuildFiles);
+      File[] catalogs = gradleDir.listFiles((dir, name) -> name.endsWith(".versions.toml"));
+      if (catalogs != null) {
+        for (File catalog : catalogs) {
+          addFile(buildFiles, catalog, earlierBuildFiles);
+        }
+      }
+      File buildSrc = new File(buildDir, "buildSrc");
+      if (buildSrc.isDirectory()) {
+        String key = buildSrc.getAbsolutePath();
+        String hash = earlierBuildFiles.get(key);
+        buildFiles.put(key, hash != null ? hash : hashTree(buildSrc.toPath()));
+      }
+    }
+
+    Map<String, String> projectFiles = new HashMap<>();
+    for (File projectDir : projectDirs) {
+      String key = projectDir.getAbsolutePath();
+      String hash = earlierProjectFiles.get(key);
+      projectFiles.put(key, hash != null ? hash : hashProject(projectDir));
+    }
+    return new BuildFingerprint(environment, buildFiles, projectFiles);
+  }
+
+  /**
+   * Find the projects whose build files have changed since an earlier fingerprint.
+   *
+   * @param previous the earlier fingerprint
+   * @return the changed project dirs or null if a build wide change means all projects
+   *     are affected
+   */
+  public Set<File> getChangedProjectDirs(BuildFingerprint previous) {
+    if (!Objects.equals(environment, previous.environment)
+        || !Objects.equals(buildFiles, previous.buildFiles)
+        || !projectFiles.keySet().equals(previous.projectFiles.keySet())) {
+      return null;
+    }
+    Set<File> changed = new HashSet<>();
+    for (Map.Entry<String, String> entry : projectFiles.entrySet()) {
+      if (!entry.getValue().equals(previous.projectFiles.get(entry.getKey()))) {
+        changed.add(new File(entry.getKey()));
+      }
+    }
+    return changed;
+  }
+
+  private static void addFile(Map<String, String> hashes, File file,
+      Map<String, String> earlierHashes) {
+    String key = file.getAbsolutePath();
+    String hash = earlierHashes.get(key);
+    hashes.put(key, hash != null ? hash : hashFile(file));
+  }
+
+  private static String hashProject(File projectDir) {
+    StringBuilder sb = new StringBuilder();
+    for (String name : BUILD_SCRIPTS) {
+      sb.append(hashFile(new File(projectDir, name))).append(';');
+    }
+    return sb.toString();
+  }
+
+  private static String hashFile(File file) {
+    if (!file.isFile()) {
+      return MISSING;
+    }
+    try {
+      return toHex(newDigest().digest(Files.readAllBytes(file.toPath())));
+    } catch (IOException e) {
+      return MISSING;
+    }
+  }
+
+  /**
+   * buildSrc can contain any number of sources so just use the file names,
+   * sizes and modification times rather than reading every file.
+   */
+  private static String hashTree(Path dir) {
+    List<String> entries = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.filter(Files::isRegularFile)
+          .filter(file -> !isBuildOutput(dir, file))
+          .forEach(file -> {
+            File f = file.toFile();
+            entries.add(f.getAbsolutePath() + ':' + f.length() + ':' + f.lastModified());
+          });
+    } catch (IOException e) {
+      return MISSING;
+    }
+    Collections.sort(entries);
+    MessageDigest digest = newDigest();
+    for (String entry : entries) {
+      digest.update(entry.getBytes(StandardCharsets.UTF_8));
+    }
+    return toHex(digest.digest());
+  }
+
+  private static boolean isBuildOutput(Path root, Path file) {
+    Path relative = root.relativize(file);
+    String first = relative.getNameCount() > 1 ? relative.getName(0).toString() : "";
+    return first.equals("build") || first.equals(".gradle") || first.equals(".kotlin");
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(environment, buildFiles, projectFiles);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    BuildFingerprint other = (BuildFingerprint) obj;
+    return Objects.equals(environment, other.environment)
+        && Objects.equals(buildFiles, other.buildFiles)
+        && Objects.equals(projectFiles, other.projectFiles);
+  }
+}
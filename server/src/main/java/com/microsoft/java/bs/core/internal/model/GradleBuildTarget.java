@@ -3,17 +3,39 @@
 
 package com.microsoft.java.bs.core.internal.model;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
+import com.microsoft.java.bs.core.internal.utils.ContentHash;
+import com.microsoft.java.bs.gradle.model.GradleModuleDependency;
 import com.microsoft.java.bs.gradle.model.GradleSourceSet;
+import com.microsoft.java.bs.gradle.model.JavaExtension;
+import com.microsoft.java.bs.gradle.model.ScalaExtension;
+import com.microsoft.java.bs.gradle.model.SupportedLanguages;
 
 import ch.epfl.scala.bsp4j.BuildTarget;
+import ch.epfl.scala.bsp4j.DependencyModule;
+import ch.epfl.scala.bsp4j.DependencyModulesItem;
+import ch.epfl.scala.bsp4j.DependencySourcesItem;
+import ch.epfl.scala.bsp4j.JavacOptionsItem;
+import ch.epfl.scala.bsp4j.MavenDependencyModule;
+import ch.epfl.scala.bsp4j.MavenDependencyModuleArtifact;
+import ch.epfl.scala.bsp4j.ScalacOptionsItem;
 
 /**
  * Represents a Gradle build target.
+ * The response items of the metadata requests are created the first time they are asked
+ * for and then reused until the target is replaced by the next store of the build targets.
+ * They are shared between responses so must not be modified.
  */
 public class GradleBuildTarget {
 
+  private static final String MAVEN_DATA_KIND = "maven";
+
   /**
    * constructor.
    *
@@ -29,6 +51,23 @@ public class GradleBuildTarget {
 
   private GradleSourceSet sourceSet;
 
+  private volatile Items items;
+
+  private volatile ContentHash sourceSetHash;
+
+  /**
+   * the response items created from the source set.
+   */
+  private static class Items {
+    private volatile List<String> compileClasspath;
+    private volatile List<String> sourceOutputDirs;
+    private volatile List<String> resourceOutputDirs;
+    private volatile JavacOptionsItem javacOptions;
+    private volatile ScalacOptionsItem scalacOptions;
+    private volatile DependencyModulesItem dependencyModules;
+    private volatile DependencySourcesItem dependencySources;
+  }
+
   /**
    * get the build target information.
    *
@@ -45,6 +84,7 @@ public class GradleBuildTarget {
    */
   public void setBuildTarget(BuildTarget buildTarget) {
     this.buildTarget = buildTarget;
+    this.items = null;
   }
 
   /**
@@ -63,6 +103,182 @@ public class GradleBuildTarget {
    */
   public void setSourceSet(GradleSourceSet sourceSet) {
     this.sourceSet = sourceSet;
+    this.items = null;
+    this.sourceSetHash = null;
+  }
+
+  /**
+   * get the hash of the content of the Gradle source set.
+   *
+   * @return the source set hash
+   */
+  public ContentHash getSourceSetHash() {
+    ContentHash current = sourceSetHash;
+    if (current == null) {
+      current = ContentHash.of(sourceSet);
+      sourceSetHash = current;
+    }
+    return current;
+  }
+
+  /**
+   * get the compile classpath as URIs.
+   *
+   * @return the compile classpath
+   */
+  public List<String> getCompileClasspath() {
+    Items current = getItems();
+    if (current.compileClasspath == null) {
+      current.compileClasspath = toUris(sourceSet.getCompileClasspath());
+    }
+    return current.compileClasspath;
+  }
+
+  /**
+   * get the source output dirs as URIs.
+   *
+   * @return the source output dirs
+   */
+  public List<String> getSourceOutputDirs() {
+    Items current = getItems();
+    if (current.sourceOutputDirs == null) {
+      current.sourceOutputDirs = toUris(sourceSet.getSourceOutputDirs());
+    }
+    return current.sourceOutputDirs;
+  }
+
+  /**
+   * get the resource output dirs as URIs.
+   *
+   * @return the resource output dirs
+   */
+  public List<String> getResourceOutputDirs() {
+    Items current = getItems();
+    if (current.resourceOutputDirs == null) {
+      current.resourceOutputDirs = toUris(sourceSet.getResourceOutputDirs());
+    }
+    return current.resourceOutputDirs;
+  }
+
+  /**
+   * get the javac options.
+   *
+   * @return the javac options or null if the source set has no java extension
+   */
+  public JavacOptionsItem getJavacOptions() {
+    Items current = getItems();
+    if (current.javacOptions == null) {
+      JavaExtension javaExtension = SupportedLanguages.JAVA.getExtension(sourceSet);
+      if (javaExtension == null) {
+        return null;
+      }
+      current.javacOptions = new JavacOptionsItem(
+          buildTarget.getId(),
+          javaExtension.getCompilerArgs(),
+          getCompileClasspath(),
+          toUri(javaExtension.getClassesDir())
+      );
+    }
+    return current.javacOptions;
+  }
+
+  /**
+   * get the scalac options.
+   *
+   * @return the scalac options or null if the source set has no scala extension
+   */
+  public ScalacOptionsItem getScalacOptions() {
+    Items current = getItems();
+    if (current.scalacOptions == null) {
+      ScalaExtension scalaExtension = SupportedLanguages.SCALA.getExtension(sourceSet);
+      if (scalaExtension == null) {
+        return null;
+      }
+      current.scalacOptions = new ScalacOptionsItem(
+          buildTarget.getId(),
+          scalaExtension.getScalaCompilerArgs(),
+          getCompileClasspath(),
+          toUri(scalaExtension.getClassesDir())
+      );
+    }
+    return current.scalacOptions;
+  }
+
+  /**
+   * get the module dependencies.
+   *
+   * @return the module dependencies
+   */
+  public DependencyModulesItem getDependencyModules() {
+    Items current = getItems();
+    if (current.dependencyModules == null) {
+      List<DependencyModule> modules = new ArrayList<>();
+      for (GradleModuleDependency dep : sourceSet.getModuleDependencies()) {
+        DependencyModule module = new DependencyModule(dep.getModule(), dep.getVersion());
+        module.setDataKind(MAVEN_DATA_KIND);
+        List<MavenDependencyModuleArtifact> artifacts = new ArrayList<>();
+        dep.getArtifacts().forEach(a -> {
+          MavenDependencyModuleArtifact artifact = new MavenDependencyModuleArtifact(
+              a.getUri().toString());
+          artifact.setClassifier(a.getClassifier());
+          artifacts.add(artifact);
+        });
+        MavenDependencyModule mavenModule = new MavenDependencyModule(
+            dep.getGroup(),
+            dep.getModule(),
+            dep.getVersion(),
+            artifacts
+        );
+        module.setData(mavenModule);
+        modules.add(module);
+      }
+      current.dependencyModules = new DependencyModulesItem(buildTarget.getId(), modules);
+    }
+    return current.dependencyModules;
+  }
+
+  /**
+   * get the sources artifacts of the module dependencies.
+   *
+   * @return the dependency sources
+   */
+  public DependencySourcesItem getDependencySources() {
+    Items current = getItems();
+    if (current.dependencySources == null) {
+      List<String> sources = new ArrayList<>();
+      for (GradleModuleDependency dep : sourceSet.getModuleDependencies()) {
+        dep.getArtifacts().stream()
+            .filter(a -> "sources".equals(a.getClassifier()))
+            .forEach(a -> sources.add(a.getUri().toString()));
+      }
+      current.dependencySources = new DependencySourcesItem(buildTarget.getId(), sources);
+    }
+    return current.dependencySources;
+  }
+
+  private Items getItems() {
+    // concurrent requests may both create the same item but they will be equal.
+    Items current = items;
+    if (current == null) {
+      current = new Items();
+      items = current;
+    }
+    return current;
+  }
+
+  private static List<String> toUris(Collection<File> files) {
+    if (files == null) {
+      return Collections.emptyList();
+    }
+    List<String> uris = new ArrayList<>(files.size());
+    for (File file : files) {
+      uris.add(file.toPath().toUri().toString());
+    }
+    return Collections.unmodifiableList(uris);
+  }
+
+  private static String toUri(File file) {
+    return file == null ? "" : file.toPath().toUri().toString();
   }
 
   @Override
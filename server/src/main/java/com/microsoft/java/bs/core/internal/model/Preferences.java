@@ -70,6 +70,13 @@ public class Preferences {
    */
   private Boolean includeTargetBaseDirectory;
 
+  /**
+   * Run compiles with Gradle's configuration cache, which skips the configuration phase
+   * when nothing it depends on has changed.  Needs Gradle 6.6 and plugins that support it.
+   * Off by default.
+   */
+  private Boolean useConfigurationCache;
+
   /**
    * Some BSP clients provide a better project view to users if the build target display name is
    * constructed in a certain way so provide some options here.
@@ -263,6 +270,24 @@ public class Preferences {
     this.includeTargetBaseDirectory = includeTargetBaseDirectory;
   }
 
+  /**
+   * should compiles be run with Gradle's configuration cache.
+   *
+   * @return flag indicating whether to use the configuration cache
+   */
+  public Boolean getUseConfigurationCache() {
+    return useConfigurationCache;
+  }
+
+  /**
+   * Run compiles with Gradle's configuration cache.
+   *
+   * @param useConfigurationCache flag indicating whether to use the configuration cache
+   */
+  public void setUseConfigurationCache(Boolean useConfigurationCache) {
+    this.useConfigurationCache = useConfigurationCache;
+  }
+
   /**
    * Name for type of display naming to use per build target.
    *
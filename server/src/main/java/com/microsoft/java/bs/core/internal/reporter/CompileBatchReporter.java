@@ -0,0 +1,68 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.reporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.gradle.tooling.events.ProgressEvent;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+
+/**
+ * Passes the progress of a build that compiles the targets of several compile requests
+ * on to the {@link CompileProgressReporter} of each request.
+ * The events of a task go to the requests that asked for the targets the task belongs to.
+ * Tasks of targets that no request asked for, such as the targets they depend on,
+ * go to every request.
+ */
+public class CompileBatchReporter extends ProgressReporter {
+
+  private final Map<String, Set<BuildTargetIdentifier>> taskPathMap;
+  private final Map<CompileProgressReporter, Set<BuildTargetIdentifier>> reporters;
+
+  /**
+   * Instantiates a {@link CompileBatchReporter}.
+   *
+   * @param taskPathMap all known task paths to their build targets.
+   * @param reporters the reporter of each request to the targets it asked for.
+   */
+  public CompileBatchReporter(Map<String, Set<BuildTargetIdentifier>> taskPathMap,
+      Map<CompileProgressReporter, Set<BuildTargetIdentifier>> reporters) {
+    super(null, null);
+    this.taskPathMap = taskPathMap;
+    this.reporters = reporters;
+  }
+
+  @Override
+  public void statusChanged(ProgressEvent event) {
+    String taskPath = getTaskPath(event.getDescriptor());
+    Set<BuildTargetIdentifier> targets = taskPath == null ? null : taskPathMap.get(taskPath);
+    List<CompileProgressReporter> owners = new ArrayList<>();
+    if (targets != null) {
+      for (Map.Entry<CompileProgressReporter, Set<BuildTargetIdentifier>> entry
+          : reporters.entrySet()) {
+        if (!Collections.disjoint(entry.getValue(), targets)) {
+          owners.add(entry.getKey());
+        }
+      }
+    }
+    if (owners.isEmpty()) {
+      owners.addAll(reporters.keySet());
+    }
+    for (CompileProgressReporter reporter : owners) {
+      reporter.statusChanged(event);
+    }
+  }
+
+  @Override
+  public void sendError(String error) {
+    for (CompileProgressReporter reporter : reporters.keySet()) {
+      reporter.sendError(error);
+    }
+  }
+}
@@ -6,6 +6,7 @@ package com.microsoft.java.bs.core.internal.reporter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import ch.epfl.scala.bsp4j.BuildClient;
 import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
@@ -25,6 +26,7 @@ import org.gradle.tooling.events.OperationResult;
 import org.gradle.tooling.events.ProgressEvent;
 import org.gradle.tooling.events.ProgressListener;
 import org.gradle.tooling.events.StartEvent;
+import org.gradle.tooling.events.task.TaskOperationDescriptor;
 import org.gradle.tooling.events.task.TaskSkippedResult;
 import org.gradle.tooling.events.task.TaskSuccessResult;
 
@@ -36,6 +38,8 @@ public class CompileProgressReporter extends ProgressReporter {
 
   private final Map<String, Set<BuildTargetIdentifier>> taskPathMap;
   private final Map<String, Long> startTimes;
+  private final Set<String> executedTaskPaths;
+  private final Set<String> succeededTaskPaths;
 
   /**
    * Instantiates a {@link CompileProgressReporter}.
@@ -49,10 +53,41 @@ public class CompileProgressReporter extends ProgressReporter {
     super(client, originId);
     this.taskPathMap = taskPathMap;
     startTimes = new HashMap<>();
+    executedTaskPaths = ConcurrentHashMap.newKeySet();
+    succeededTaskPaths = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * The paths of all tasks that did work i.e. were not up-to-date or skipped.
+   *
+   * @return the executed task paths
+   */
+  public Set<String> getExecutedTaskPaths() {
+    return executedTaskPaths;
+  }
+
+  /**
+   * The paths of all tasks that finished without failing, including up-to-date
+   * and skipped tasks.
+   *
+   * @return the succeeded task paths
+   */
+  public Set<String> getSucceededTaskPaths() {
+    return succeededTaskPaths;
   }
 
   @Override
   public void statusChanged(ProgressEvent event) {
+    if (event instanceof FinishEvent && event.getDescriptor() instanceof TaskOperationDescriptor) {
+      OperationResult result = ((FinishEvent) event).getResult();
+      String finishedTaskPath = ((TaskOperationDescriptor) event.getDescriptor()).getTaskPath();
+      if (!isNoOp(result)) {
+        executedTaskPaths.add(finishedTaskPath);
+      }
+      if (!(result instanceof FailureResult)) {
+        succeededTaskPaths.add(finishedTaskPath);
+      }
+    }
     if (client != null) {
       String taskPath = getTaskPath(event.getDescriptor());
       TaskId taskId = getTaskId(taskPath);
@@ -67,11 +102,8 @@ public class CompileProgressReporter extends ProgressReporter {
           Long compileStartTime = startTimes.get(taskPath);
           Long compileTimeDuration = compileStartTime == null ? null
               : event.getEventTime() - compileStartTime;
-          boolean skipped = result instanceof TaskSkippedResult;
-          boolean upToDate = result instanceof TaskSuccessResult
-              && ((TaskSuccessResult) result).isUpToDate();
           taskFinished(taskId, targets, event.getDisplayName(), compileTimeDuration, status,
-              skipped || upToDate);
+              isNoOp(result));
         } else {
           taskInProgress(taskId, targets, event.getDisplayName());
         }
@@ -79,6 +111,13 @@ public class CompileProgressReporter extends ProgressReporter {
     }
   }
 
+  private boolean isNoOp(OperationResult result) {
+    boolean skipped = result instanceof TaskSkippedResult;
+    boolean upToDate = result instanceof TaskSuccessResult
+        && ((TaskSuccessResult) result).isUpToDate();
+    return skipped || upToDate;
+  }
+
   private void taskStarted(TaskId taskId, Set<BuildTargetIdentifier> targets, String message) {
     long eventTime = System.currentTimeMillis();
     targets.forEach(btId -> {
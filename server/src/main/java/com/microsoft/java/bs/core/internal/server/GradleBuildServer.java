@@ -27,6 +27,8 @@ import com.microsoft.java.bs.core.internal.log.BspTraceEntity;
 import com.microsoft.java.bs.core.internal.services.BuildTargetService;
 import com.microsoft.java.bs.core.internal.services.LifecycleService;
 import com.microsoft.java.bs.core.internal.utils.concurrent.CancellableFuture;
+import com.microsoft.java.bs.core.internal.utils.concurrent.RequestExecutor;
+import com.microsoft.java.bs.core.internal.utils.concurrent.RequestExecutor.Lane;
 
 import ch.epfl.scala.bsp4j.BuildServer;
 import ch.epfl.scala.bsp4j.CleanCacheParams;
@@ -72,17 +74,23 @@ import ch.epfl.scala.bsp4j.SourcesResult;
 import ch.epfl.scala.bsp4j.TestParams;
 import ch.epfl.scala.bsp4j.TestResult;
 import ch.epfl.scala.bsp4j.WorkspaceBuildTargetsResult;
+import ch.epfl.scala.bsp4j.extended.BuildServerEx;
+import ch.epfl.scala.bsp4j.extended.DidChangeFilesParams;
+import ch.epfl.scala.bsp4j.extended.InverseSourcesBatchParams;
+import ch.epfl.scala.bsp4j.extended.InverseSourcesBatchResult;
 
 /**
  * The implementation of the Build Server Protocol.
  */
 public class GradleBuildServer implements BuildServer, JavaBuildServer, ScalaBuildServer,
-    JvmBuildServer {
+    JvmBuildServer, BuildServerEx {
 
   private final LifecycleService lifecycleService;
 
   private final BuildTargetService buildTargetService;
 
+  private final RequestExecutor requestExecutor;
+
   /**
    * constructor.
    *
@@ -91,13 +99,26 @@ public class GradleBuildServer implements BuildServer, JavaBuildServer, ScalaBui
    */
   public GradleBuildServer(LifecycleService lifecycleService,
       BuildTargetService buildTargetService) {
+    this(lifecycleService, buildTargetService, new RequestExecutor());
+  }
+
+  /**
+   * constructor.
+   *
+   * @param lifecycleService lifecycle service
+   * @param buildTargetService build target service
+   * @param requestExecutor the executor to run requests on
+   */
+  public GradleBuildServer(LifecycleService lifecycleService,
+      BuildTargetService buildTargetService, RequestExecutor requestExecutor) {
     this.lifecycleService = lifecycleService;
     this.buildTargetService = buildTargetService;
+    this.requestExecutor = requestExecutor;
   }
 
   @Override
   public CompletableFuture<InitializeBuildResult> buildInitialize(InitializeBuildParams params) {
-    return handleRequest("build/initialize", cancelToken ->
+    return handleRequest("build/initialize", Lane.BUILD, cancelToken ->
         lifecycleService.initializeServer(params, cancelToken));
   }
 
@@ -108,8 +129,13 @@ public class GradleBuildServer implements BuildServer, JavaBuildServer, ScalaBui
 
   @Override
   public CompletableFuture<Object> buildShutdown() {
-    return handleRequest("build/shutdown", cancelToken ->
-        lifecycleService.shutdown());
+    return handleRequest("build/shutdown", Lane.BUILD, cancelToken -> {
+      buildTargetService.shutdown();
+      Object result = lifecycleService.shutdown();
+      // only build/exit is expected after shutdown so stop taking requests.
+      requestExecutor.shutdown();
+      return result;
+    });
   }
 
   @Override
@@ -119,13 +145,13 @@ public class GradleBuildServer implements BuildServer, JavaBuildServer, ScalaBui
 
   @Override
   public CompletableFuture<WorkspaceBuildTargetsResult> workspaceBuildTargets() {
-    return handleRequest("workspace/buildTargets", cancelToken ->
+    return handleRequest("workspace/buildTargets", Lane.QUERY, cancelToken ->
         buildTargetService.getWorkspaceBuildTargets(cancelToken));
   }
 
   @Override
   public CompletableFuture<Object> workspaceReload() {
-    return handleRequest("workspace/reload", cancelToken -> {
+    return handleRequest("workspace/reload", Lane.BUILD, cancelToken -> {
       buildTargetService.reloadWorkspace(cancelToken);
       return null;
     });
@@ -133,72 +159,85 @@ public class GradleBuildServer implements BuildServer, JavaBuildServer, ScalaBui
 
   @Override
   public CompletableFuture<SourcesResult> buildTargetSources(SourcesParams params) {
-    return handleRequest("buildTarget/sources", cancelToken ->
+    return handleRequest("buildTarget/sources", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetSources(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<InverseSourcesResult> buildTargetInverseSources(
       InverseSourcesParams params) {
-    return handleRequest("buildTarget/inverseSources", cancelToken ->
+    return handleRequest("buildTarget/inverseSources", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetInverseSources(params, cancelToken));
   }
 
+  @Override
+  public CompletableFuture<InverseSourcesBatchResult> buildTargetInverseSourcesBatch(
+      InverseSourcesBatchParams params) {
+    return handleRequest("buildTarget/inverseSourcesBatch", Lane.QUERY, cancelToken ->
+        buildTargetService.getBuildTargetInverseSourcesBatch(params, cancelToken));
+  }
+
+  @Override
+  public void onWorkspaceDidChangeFiles(DidChangeFilesParams params) {
+    handleNotification("workspace/didChangeFiles",
+        () -> buildTargetService.didChangeFiles(params), false /*async*/);
+  }
+
   @Override
   public CompletableFuture<DependencySourcesResult> buildTargetDependencySources(
       DependencySourcesParams params) {
-    return handleRequest("buildTarget/dependencySources", cancelToken ->
+    return handleRequest("buildTarget/dependencySources", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetDependencySources(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<ResourcesResult> buildTargetResources(ResourcesParams params) {
-    return handleRequest("buildTarget/resources", cancelToken ->
+    return handleRequest("buildTarget/resources", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetResources(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<OutputPathsResult> buildTargetOutputPaths(OutputPathsParams params) {
-    return handleRequest("buildTarget/outputPaths", cancelToken ->
+    return handleRequest("buildTarget/outputPaths", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetOutputPaths(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<CompileResult> buildTargetCompile(CompileParams params) {
-    return handleRequest("buildTarget/compile", cancelToken ->
+    return handleRequest("buildTarget/compile", Lane.BUILD, cancelToken ->
        buildTargetService.compile(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<JvmRunEnvironmentResult> buildTargetJvmRunEnvironment(
       JvmRunEnvironmentParams params) {
-    return handleRequest("buildTarget/jvmRunEnvironment", cancelToken ->
+    return handleRequest("buildTarget/jvmRunEnvironment", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetJvmRunEnvironment(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<JvmTestEnvironmentResult> buildTargetJvmTestEnvironment(
       JvmTestEnvironmentParams params) {
-    return handleRequest("buildTarget/jvmTestEnvironment", cancelToken ->
+    return handleRequest("buildTarget/jvmTestEnvironment", Lane.BUILD, cancelToken ->
         buildTargetService.getBuildTargetJvmTestEnvironment(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<JvmCompileClasspathResult> buildTargetJvmCompileClasspath(
       JvmCompileClasspathParams params) {
-    return handleRequest("buildTarget/jvmCompileClasspath", cancelToken ->
+    return handleRequest("buildTarget/jvmCompileClasspath", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetJvmCompileClasspath(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<TestResult> buildTargetTest(TestParams params) {
-    return handleRequest("buildTarget/test", cancelToken ->
+    return handleRequest("buildTarget/test", Lane.BUILD, cancelToken ->
        buildTargetService.buildTargetTest(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<RunResult> buildTargetRun(RunParams params) {
-    return handleRequest("buildTarget/run", cancelToken ->
+    return handleRequest("buildTarget/run", Lane.BUILD, cancelToken ->
        buildTargetService.buildTargetRun(params, cancelToken));
   }
 
@@ -217,27 +256,27 @@ public class GradleBuildServer implements BuildServer, JavaBuildServer, ScalaBui
 
   @Override
   public CompletableFuture<CleanCacheResult> buildTargetCleanCache(CleanCacheParams params) {
-    return handleRequest("buildTarget/cleanCache", cancelToken ->
+    return handleRequest("buildTarget/cleanCache", Lane.BUILD, cancelToken ->
         buildTargetService.cleanCache(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<DependencyModulesResult> buildTargetDependencyModules(
       DependencyModulesParams params) {
-    return handleRequest("buildTarget/dependencyModules", cancelToken ->
+    return handleRequest("buildTarget/dependencyModules", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetDependencyModules(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<JavacOptionsResult> buildTargetJavacOptions(JavacOptionsParams params) {
-    return handleRequest("buildTarget/javacOptions", cancelToken ->
+    return handleRequest("buildTarget/javacOptions", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetJavacOptions(params, cancelToken));
   }
 
   @Override
   public CompletableFuture<ScalacOptionsResult> buildTargetScalacOptions(
       ScalacOptionsParams params) {
-    return handleRequest("buildTarget/scalacOptions", cancelToken ->
+    return handleRequest("buildTarget/scalacOptions", Lane.QUERY, cancelToken ->
         buildTargetService.getBuildTargetScalacOptions(params, cancelToken));
   }
 
@@ -271,20 +310,20 @@ public class GradleBuildServer implements BuildServer, JavaBuildServer, ScalaBui
         .build();
     LOGGER.log(Level.FINE, "Received notification '" + methodName + "'.", entity);
     if (async) {
-      CompletableFuture.runAsync(runnable);
+      CompletableFuture.runAsync(runnable, requestExecutor.getExecutor(Lane.BUILD));
     } else {
       runnable.run();
     }
   }
 
-  private <R> CompletableFuture<R> handleRequest(String methodName,
+  private <R> CompletableFuture<R> handleRequest(String methodName, Lane lane,
       Function<CancellationToken, R> request) {
     long startTime = System.nanoTime();
     // create an empty future that will be completed further down
     CompletableFuture<CancellationToken> cancelTokenFuture = new CompletableFuture<>();
     // define async run request and handle errors
     CompletableFuture<R> result = cancelTokenFuture
-        .thenApplyAsync(request)
+        .thenApplyAsync(request, requestExecutor.getExecutor(lane))
         .thenApply(Either::<Throwable, R>forRight)
         .thenCompose(either -> {
           long elapsedTime = getElapsedTime(startTime);
@@ -0,0 +1,410 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.services;
+
+import static com.microsoft.java.bs.core.Launcher.LOGGER;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import com.microsoft.java.bs.gradle.model.GradleSourceSet;
+import com.microsoft.java.bs.gradle.model.GradleSourceSets;
+
+/**
+ * Watches the build files of the workspace so the build targets can be reloaded in the
+ * background when they change, rather than when the client next asks.
+ * Changes are collected until none have arrived for a while and are then passed on as
+ * the project dirs whose build scripts changed, or as null if a build wide file such as
+ * a settings script, version catalog or anything in buildSrc changed.
+ * The changed files themselves are passed on too, for the Gradle daemons.
+ * The source and resource dirs can also be watched so their changed files are passed on
+ * without a reload.  This is off by default as every dir within them is watched, which
+ * can use up the watch limit of the OS, and the client already sends these changes with
+ * `workspace/didChangeFiles`.
+ * Changes are passed on from a thread of their own, one batch at a time, so a slow reload
+ * doesn't stop the watcher draining its events and overflowing.
+ */
+class BuildFileWatcher {
+
+  private static final Set<String> PROJECT_FILES = Set.of(
+      "build.gradle", "build.gradle.kts", "gradle.properties");
+
+  private static final Set<String> SETTINGS_FILES = Set.of(
+      "settings.gradle", "settings.gradle.kts");
+
+  private static final Set<String> BUILD_OUTPUT_DIRS = Set.of("build", ".gradle", ".kotlin");
+
+  /**
+   * what a watched dir is to the build.
+   */
+  private enum DirKind {
+    // a root dir of the workspace or an included build.
+    BUILD,
+    PROJECT,
+    // the gradle dir of a build, holding version catalogs.
+    GRADLE,
+    BUILD_SRC,
+    // a source or resource dir, or a dir within one.
+    SOURCE
+  }
+
+  /**
+   * what a change to a file means for the build.
+   */
+  private enum Change {
+    // FILE is only passed on to the Gradle daemons, it doesn't need a reload.
+    NONE, FILE, PROJECT, BUILD
+  }
+
+  private record WatchedDir(Path dir, DirKind kind) {
+  }
+
+  private final long delayMillis;
+
+  private final boolean watchSourceDirs;
+
+  private final Consumer<Set<File>> onChange;
+
+  private final Consumer<List<Path>> onFilesChange;
+
+  private final Map<WatchKey, WatchedDir> watchedDirs = new ConcurrentHashMap<>();
+
+  private final Map<Path, WatchKey> watchKeys = new HashMap<>();
+
+  // the dirs asked to be watched by the last call to watch.
+  private Map<Path, DirKind> lastDirs = Map.of();
+
+  private final ExecutorService notifier = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "bsp-build-file-change");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private WatchService watchService;
+
+  private Thread thread;
+
+  private boolean closed;
+
+  /**
+   * constructor.
+   *
+   * @param delayMillis how long to wait for more changes before passing them on
+   * @param watchSourceDirs whether to watch the source and resource dirs too
+   * @param onChange called with the changed project dirs or null for a build wide change
+   * @param onFilesChange called with the changed build and source files before onChange
+   */
+  BuildFileWatcher(long delayMillis, boolean watchSourceDirs, Consumer<Set<File>> onChange,
+      Consumer<List<Path>> onFilesChange) {
+    this.delayMillis = delayMillis;
+    this.watchSourceDirs = watchSourceDirs;
+    this.onChange = onChange;
+    this.onFilesChange = onFilesChange;
+  }
+
+  /**
+   * Watch the build files, and optionally the source dirs, of the given source sets,
+   * replacing the dirs watched before.
+   * The first call starts the watcher.  Nothing is registered if the dirs are the same as
+   * last time and are all still watched.
+   *
+   * @param rootDir the workspace root dir
+   * @param sourceSets the source sets to get the project and included build dirs from
+   */
+  synchronized void watch(File rootDir, GradleSourceSets sourceSets) {
+    if (closed) {
+      return;
+    }
+    Map<Path, DirKind> dirs = new LinkedHashMap<>();
+    Set<File> buildDirs = new HashSet<>();
+    buildDirs.add(rootDir);
+    for (GradleSourceSet sourceSet : sourceSets.getGradleSourceSets()) {
+      buildDirs.add(sourceSet.getRootDir());
+      dirs.put(sourceSet.getProjectDir().toPath(), DirKind.PROJECT);
+    }
+    for (File buildDir : buildDirs) {
+      dirs.put(buildDir.toPath(), DirKind.BUILD);
+      dirs.put(new File(buildDir, "gradle").toPath(), DirKind.GRADLE);
+      addDirTree(dirs, new File(buildDir, "buildSrc").toPath(), DirKind.BUILD_SRC);
+    }
+    if (watchSourceDirs) {
+      for (GradleSourceSet sourceSet : sourceSets.getGradleSourceSets()) {
+        addSourceDirs(dirs, sourceSet.getSourceDirs());
+        addSourceDirs(dirs, sourceSet.getResourceDirs());
+      }
+    }
+    if (dirs.equals(lastDirs) && isWatched(dirs.keySet())) {
+      return;
+    }
+    lastDirs = dirs;
+    try {
+      if (watchService == null) {
+        watchService = FileSystems.getDefault().newWatchService();
+        thread = new Thread(this::run, "bsp-build-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+      }
+      Iterator<Map.Entry<Path, WatchKey>> iter = watchKeys.entrySet().iterator();
+      while (iter.hasNext()) {
+        Map.Entry<Path, WatchKey> entry = iter.next();
+        if (!dirs.containsKey(entry.getKey())) {
+          entry.getValue().cancel();
+          watchedDirs.remove(entry.getValue());
+          iter.remove();
+        }
+      }
+      for (Map.Entry<Path, DirKind> entry : dirs.entrySet()) {
+        register(entry.getKey(), entry.getValue());
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to watch the build files", e);
+    }
+  }
+
+  /**
+   * Stop watching.
+   */
+  synchronized void close() {
+    closed = true;
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        LOGGER.log(Level.FINE, "Failed to close the build file watcher", e);
+      }
+      thread.interrupt();
+    }
+    notifier.shutdown();
+  }
+
+  /**
+   * are the dirs that exist all watched, as a deleted dir stops being watched.
+   */
+  private boolean isWatched(Set<Path> dirs) {
+    for (Path dir : dirs) {
+      WatchKey key = watchKeys.get(dir);
+      if ((key == null || !key.isValid()) && Files.isDirectory(dir)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void addSourceDirs(Map<Path, DirKind> dirs, Set<File> sourceDirs) {
+    if (sourceDirs != null) {
+      for (File sourceDir : sourceDirs) {
+        addDirTree(dirs, sourceDir.toPath(), DirKind.SOURCE);
+      }
+    }
+  }
+
+  /**
+   * add a dir and all the dirs within it, leaving any that are already watched as they are
+   * e.g. a project dir that is also a source dir.
+   */
+  private void addDirTree(Map<Path, DirKind> dirs, Path root, DirKind kind) {
+    if (!Files.isDirectory(root)) {
+      return;
+    }
+    try {
+      Files.walkFileTree(root, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          if (isBuildOutput(dir)) {
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          dirs.putIfAbsent(dir, kind);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to list the dirs of " + root, e);
+    }
+  }
+
+  /**
+   * is the path the build output of buildSrc, which changes whenever buildSrc is built.
+   */
+  private static boolean isBuildOutput(Path path) {
+    Path parent = path.getParent();
+    return parent != null && parent.getFileName() != null
+        && parent.getFileName().toString().equals("buildSrc")
+        && BUILD_OUTPUT_DIRS.contains(path.getFileName().toString());
+  }
+
+  private void register(Path dir, DirKind kind) throws IOException {
+    WatchKey existing = watchKeys.get(dir);
+    if (existing != null && existing.isValid()) {
+      watchedDirs.put(existing, new WatchedDir(dir, kind));
+      return;
+    }
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    watchKeys.put(dir, key);
+    watchedDirs.put(key, new WatchedDir(dir, kind));
+  }
+
+  private void run() {
+    Set<File> changedProjectDirs = new HashSet<>();
+    Set<Path> changedFiles = new LinkedHashSet<>();
+    boolean buildChanged = false;
+    boolean pending = false;
+    long deadline = 0;
+    while (true) {
+      WatchKey key;
+      try {
+        if (pending) {
+          long wait = deadline - System.currentTimeMillis();
+          key = wait > 0 ? watchService.poll(wait, TimeUnit.MILLISECONDS) : null;
+        } else {
+          key = watchService.take();
+        }
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+      if (key == null) {
+        boolean reload = buildChanged || !changedProjectDirs.isEmpty();
+        notifyChange(reload, buildChanged ? null : changedProjectDirs,
+            new ArrayList<>(changedFiles));
+        changedProjectDirs = new HashSet<>();
+        changedFiles = new LinkedHashSet<>();
+        buildChanged = false;
+        pending = false;
+        continue;
+      }
+      WatchedDir watched = watchedDirs.get(key);
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (watched == null) {
+          continue;
+        }
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          if (watched.kind() == DirKind.SOURCE) {
+            // the daemons accept changed dirs, so there's no need to reload.
+            changedFiles.add(watched.dir());
+          } else {
+            buildChanged = true;
+          }
+        } else {
+          Path name = (Path) event.context();
+          Path file = watched.dir().resolve(name);
+          switch (getChange(watched, name.toString(), file)) {
+            case NONE:
+              continue;
+            case FILE:
+              break;
+            case PROJECT:
+              changedProjectDirs.add(watched.dir().toFile());
+              break;
+            default:
+              buildChanged = true;
+              break;
+          }
+          changedFiles.add(file);
+          if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+            if (watched.kind() == DirKind.SOURCE) {
+              watchNewDir(file, DirKind.SOURCE);
+            } else if (watched.kind() == DirKind.BUILD_SRC
+                || watched.kind() == DirKind.BUILD && name.toString().equals("buildSrc")) {
+              watchNewDir(file, DirKind.BUILD_SRC);
+            }
+          }
+        }
+        pending = true;
+        deadline = System.currentTimeMillis() + delayMillis;
+      }
+      if (!key.reset()) {
+        forget(key);
+      }
+    }
+  }
+
+  /**
+   * the dir of the key has been deleted.
+   */
+  private synchronized void forget(WatchKey key) {
+    WatchedDir watched = watchedDirs.remove(key);
+    if (watched != null) {
+      watchKeys.remove(watched.dir(), key);
+    }
+  }
+
+  private static Change getChange(WatchedDir watched, String name, Path file) {
+    switch (watched.kind()) {
+      case BUILD:
+        return PROJECT_FILES.contains(name) || SETTINGS_FILES.contains(name)
+            || name.equals("buildSrc") ? Change.BUILD : Change.NONE;
+      case PROJECT:
+        return PROJECT_FILES.contains(name) ? Change.PROJECT : Change.NONE;
+      case GRADLE:
+        return name.endsWith(".versions.toml") ? Change.BUILD : Change.NONE;
+      case SOURCE:
+        return Change.FILE;
+      default:
+        return isBuildOutput(file) ? Change.NONE : Change.BUILD;
+    }
+  }
+
+  private synchronized void watchNewDir(Path dir, DirKind kind) {
+    if (closed || !Files.isDirectory(dir)) {
+      return;
+    }
+    Map<Path, DirKind> dirs = new LinkedHashMap<>();
+    addDirTree(dirs, dir, kind);
+    try {
+      for (Map.Entry<Path, DirKind> entry : dirs.entrySet()) {
+        register(entry.getKey(), entry.getValue());
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to watch " + dir, e);
+    }
+  }
+
+  private void notifyChange(boolean reload, Set<File> changedProjectDirs,
+      List<Path> changedFiles) {
+    try {
+      notifier.execute(() -> {
+        try {
+          onFilesChange.accept(changedFiles);
+          if (reload) {
+            onChange.accept(changedProjectDirs);
+          }
+        } catch (RuntimeException e) {
+          LOGGER.log(Level.WARNING, "Failed to reload after the build files changed", e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // the watcher has been closed.
+    }
+  }
+}
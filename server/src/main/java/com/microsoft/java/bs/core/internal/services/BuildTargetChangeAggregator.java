@@ -0,0 +1,111 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.services;
+
+import static com.microsoft.java.bs.core.Launcher.LOGGER;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import com.microsoft.java.bs.core.internal.log.BuildTargetChangeInfo;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+
+/**
+ * Merges the build target changes of reloads that run close together, so the client is
+ * sent one buildTarget/didChange once the changes have been quiet for a while rather than
+ * one per reload.
+ * The changes of a target are merged into one from its first old source set to its last
+ * new one, so a created then changed target is reported as created and a created then
+ * deleted target isn't reported at all.
+ */
+class BuildTargetChangeAggregator {
+
+  private final long quietMillis;
+
+  private final Consumer<List<BuildTargetChangeInfo>> sender;
+
+  private final ScheduledExecutorService scheduler;
+
+  // the merged changes waiting to be sent, in the order the targets first changed.
+  private final Map<BuildTargetIdentifier, BuildTargetChangeInfo> pending =
+      new LinkedHashMap<>();
+
+  private ScheduledFuture<?> scheduledSend;
+
+  /**
+   * constructor.
+   *
+   * @param quietMillis how long to wait for more changes before sending, or 0 to send
+   *     each change straight away
+   * @param sender sends the merged changes to the client
+   */
+  BuildTargetChangeAggregator(long quietMillis, Consumer<List<BuildTargetChangeInfo>> sender) {
+    this.quietMillis = quietMillis;
+    this.sender = sender;
+    this.scheduler = quietMillis > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "bsp-didchange");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+  }
+
+  /**
+   * Add the changes of a reload and restart the quiet period.
+   *
+   * @param changes the changed build targets
+   */
+  void add(List<BuildTargetChangeInfo> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    if (scheduler == null) {
+      sender.accept(changes);
+      return;
+    }
+    synchronized (this) {
+      for (BuildTargetChangeInfo change : changes) {
+        BuildTargetChangeInfo first = pending.get(change.getBtId());
+        if (first == null) {
+          pending.put(change.getBtId(), change);
+        } else if (Objects.equals(first.getOldSourceSet(), change.getNewSourceSet())) {
+          // the changes cancel out so there's nothing to report.
+          pending.remove(change.getBtId());
+        } else {
+          pending.put(change.getBtId(), new BuildTargetChangeInfo(change.getBtId(),
+              first.getOldSourceSet(), change.getNewSourceSet()));
+        }
+      }
+      if (scheduledSend != null) {
+        scheduledSend.cancel(false);
+      }
+      scheduledSend = scheduler.schedule(this::send, quietMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void send() {
+    List<BuildTargetChangeInfo> changes;
+    synchronized (this) {
+      changes = new ArrayList<>(pending.values());
+      pending.clear();
+      scheduledSend = null;
+    }
+    if (!changes.isEmpty()) {
+      try {
+        sender.accept(changes);
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.SEVERE, "Failed to send build target changes", e);
+      }
+    }
+  }
+}
@@ -7,15 +7,28 @@ import static com.microsoft.java.bs.core.Launcher.LOGGER;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
@@ -23,24 +36,26 @@ import java.util.stream.Collectors;
 import com.microsoft.java.bs.core.internal.gradle.GradleApiConnector;
 import com.microsoft.java.bs.core.internal.gradle.Utils;
 import com.microsoft.java.bs.core.internal.log.BuildTargetChangeInfo;
+import com.microsoft.java.bs.core.internal.log.SourceSetChange;
 import com.microsoft.java.bs.core.internal.managers.BuildTargetManager;
 import com.microsoft.java.bs.core.internal.managers.PreferenceManager;
+import com.microsoft.java.bs.core.internal.managers.SourceSetsCache;
+import com.microsoft.java.bs.core.internal.model.BuildFingerprint;
 import com.microsoft.java.bs.core.internal.model.GradleBuildTarget;
 import com.microsoft.java.bs.core.internal.model.GradleTestEntity;
+import com.microsoft.java.bs.core.internal.reporter.CompileBatchReporter;
 import com.microsoft.java.bs.core.internal.reporter.CompileProgressReporter;
 import com.microsoft.java.bs.core.internal.reporter.DefaultProgressReporter;
 import com.microsoft.java.bs.core.internal.reporter.ProgressReporter;
 import com.microsoft.java.bs.core.internal.utils.JsonUtils;
+import com.microsoft.java.bs.core.internal.utils.PathTrie;
 import com.microsoft.java.bs.core.internal.utils.TelemetryUtils;
 import com.microsoft.java.bs.core.internal.utils.UriUtils;
-import com.microsoft.java.bs.gradle.model.GradleModuleDependency;
 import com.microsoft.java.bs.gradle.model.GradleRunTask;
 import com.microsoft.java.bs.gradle.model.GradleSourceSet;
 import com.microsoft.java.bs.gradle.model.GradleSourceSets;
 import com.microsoft.java.bs.gradle.model.GradleTestTask;
-import com.microsoft.java.bs.gradle.model.JavaExtension;
-import com.microsoft.java.bs.gradle.model.ScalaExtension;
-import com.microsoft.java.bs.gradle.model.SupportedLanguages;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSets;
 
 import ch.epfl.scala.bsp4j.BuildClient;
 import ch.epfl.scala.bsp4j.BuildTarget;
@@ -51,7 +66,6 @@ import ch.epfl.scala.bsp4j.CleanCacheParams;
 import ch.epfl.scala.bsp4j.CleanCacheResult;
 import ch.epfl.scala.bsp4j.CompileParams;
 import ch.epfl.scala.bsp4j.CompileResult;
-import ch.epfl.scala.bsp4j.DependencyModule;
 import ch.epfl.scala.bsp4j.DependencyModulesItem;
 import ch.epfl.scala.bsp4j.DependencyModulesParams;
 import ch.epfl.scala.bsp4j.DependencyModulesResult;
@@ -73,8 +87,6 @@ import ch.epfl.scala.bsp4j.JvmTestEnvironmentResult;
 import ch.epfl.scala.bsp4j.DidChangeBuildTarget;
 import ch.epfl.scala.bsp4j.InverseSourcesParams;
 import ch.epfl.scala.bsp4j.InverseSourcesResult;
-import ch.epfl.scala.bsp4j.MavenDependencyModule;
-import ch.epfl.scala.bsp4j.MavenDependencyModuleArtifact;
 import ch.epfl.scala.bsp4j.OutputPathItem;
 import ch.epfl.scala.bsp4j.OutputPathItemKind;
 import ch.epfl.scala.bsp4j.OutputPathsItem;
@@ -103,16 +115,32 @@ import ch.epfl.scala.bsp4j.StatusCode;
 import ch.epfl.scala.bsp4j.TestParams;
 import ch.epfl.scala.bsp4j.TestParamsDataKind;
 import ch.epfl.scala.bsp4j.TestResult;
+import ch.epfl.scala.bsp4j.TextDocumentIdentifier;
 import ch.epfl.scala.bsp4j.WorkspaceBuildTargetsResult;
+import ch.epfl.scala.bsp4j.extended.DidChangeFilesParams;
+import ch.epfl.scala.bsp4j.extended.InverseSourcesBatchItem;
+import ch.epfl.scala.bsp4j.extended.InverseSourcesBatchParams;
+import ch.epfl.scala.bsp4j.extended.InverseSourcesBatchResult;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.gradle.tooling.BuildCancelledException;
 import org.gradle.tooling.CancellationToken;
+import org.gradle.tooling.CancellationTokenSource;
+import org.gradle.tooling.GradleConnector;
 
 /**
  * Service to handle build target related BSP requests.
  */
 public class BuildTargetService {
 
-  private static final String MAVEN_DATA_KIND = "maven";
+  private static final long CANCEL_POLL_MILLIS = 100;
+
+  private static final ScheduledExecutorService CANCEL_POLLER =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bsp-reload-cancel");
+        thread.setDaemon(true);
+        return thread;
+      });
 
   private final BuildTargetManager buildTargetManager;
 
@@ -120,9 +148,48 @@ public class BuildTargetService {
 
   private final PreferenceManager preferenceManager;
 
+  private final SourceSetsCache sourceSetsCache;
+
+  private final CompileCoalescer compileCoalescer;
+
+  private final BuildTargetChangeAggregator changeAggregator;
+
+  private final BuildFileWatcher buildFileWatcher;
+
+  private final ChangedPathsBatcher changedPathsBatcher;
+
+  // saves the build targets and watches their build files away from requests and reloads.
+  private final ExecutorService cacheUpdater = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "bsp-build-target-cache");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  // only the latest of the updates waiting for the cache updater is run.
+  private final AtomicReference<Runnable> pendingCacheUpdate = new AtomicReference<>();
+
   private BuildClient client;
 
-  private boolean firstTime;
+  private final Object loadLock = new Object();
+
+  // completes once the build targets have first been stored.
+  private CompletableFuture<Void> initialLoad;
+
+  private final ReentrantLock reloadLock = new ReentrantLock();
+
+  private final Object pendingReloadLock = new Object();
+
+  // the scope of reloads that have been requested but not yet run.
+  private boolean pendingWorkspaceReload;
+
+  private Set<File> pendingReloadProjectDirs = new HashSet<>();
+
+  // the earliest fingerprint taken by the reloads that have not yet run.
+  private BuildFingerprint pendingReloadFingerprint;
+
+  private CancellationTokenSource runningReload;
+
+  private volatile BuildFingerprint fingerprint;
 
   /**
    * Initialize the build target service.
@@ -136,53 +203,386 @@ public class BuildTargetService {
     this.buildTargetManager = buildTargetManager;
     this.connector = connector;
     this.preferenceManager = preferenceManager;
-    this.firstTime = true;
+    this.sourceSetsCache = new SourceSetsCache(preferenceManager);
+    this.compileCoalescer = new CompileCoalescer(
+        Long.getLong("bsp.gradle.compileBatchWindow", 50), this::compileBatch);
+    this.changeAggregator = new BuildTargetChangeAggregator(
+        Long.getLong("bsp.gradle.didChangeQuietPeriod", 300), this::sendBuildTargetsChanged);
+    this.changedPathsBatcher = new ChangedPathsBatcher(
+        Long.getLong("bsp.gradle.changedPathsBatchWindow", 100), this::notifyDaemons);
+    this.buildFileWatcher = Boolean.getBoolean("bsp.gradle.buildFileWatcher.disabled") ? null
+        : new BuildFileWatcher(Long.getLong("bsp.gradle.buildFileWatchDelay", 500),
+            Boolean.getBoolean("bsp.gradle.watchSourceDirs"),
+            projectDirs -> reloadProjects(projectDirs, null), changedPathsBatcher::add);
+  }
+
+  /**
+   * Stop the background work of the service.
+   */
+  public void shutdown() {
+    cacheUpdater.shutdown();
+    if (buildFileWatcher != null) {
+      buildFileWatcher.close();
+    }
+  }
+
+  /**
+   * Pass the files the client has seen change on to the Gradle daemons.
+   *
+   * @param params the URIs of the changed files
+   */
+  public void didChangeFiles(DidChangeFilesParams params) {
+    List<Path> paths = new ArrayList<>();
+    for (String uri : params.getUris()) {
+      try {
+        paths.add(Path.of(UriUtils.getUriFromString(uri)));
+      } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+        LOGGER.fine("Ignoring changed file with unsupported URI: " + uri);
+      }
+    }
+    changedPathsBatcher.add(paths);
+  }
+
+  /**
+   * pass the changed paths on to the daemons of the builds they belong to, as an included
+   * build can be run by a different Gradle version than the workspace build.
+   */
+  private void notifyDaemons(List<Path> changedPaths) {
+    URI workspaceRootUri = preferenceManager.getRootUri();
+    Map<URI, List<Path>> pathsByRoot = new LinkedHashMap<>();
+    for (Path path : changedPaths) {
+      File rootDir = buildTargetManager.getBuildRootDir(path);
+      URI rootUri = rootDir == null ? workspaceRootUri : rootDir.toURI();
+      if (rootUri != null) {
+        pathsByRoot.computeIfAbsent(rootUri, k -> new ArrayList<>()).add(path);
+      }
+    }
+    pathsByRoot.forEach(connector::notifyDaemonsAboutChangedPaths);
   }
 
-  private List<BuildTargetChangeInfo> updateBuildTargets(CancellationToken cancelToken) {
+  /**
+   * fetch the build targets of the whole workspace.
+   *
+   * @param earlier a fingerprint taken before the fetch or null to take one now, so build
+   *     files changed during the fetch are reloaded next time
+   */
+  private List<BuildTargetChangeInfo> updateBuildTargets(BuildFingerprint earlier,
+      CancellationToken cancelToken) {
+    if (earlier == null) {
+      earlier = getFingerprint();
+    }
     GradleSourceSets sourceSets = connector.getGradleSourceSets(preferenceManager.getRootUri(),
         client, cancelToken);
-    Function<GradleSourceSet, String> displayNameMaker = Utils.getDisplayNameMaker(
-        preferenceManager.getPreferences());
-    return buildTargetManager.store(sourceSets, displayNameMaker);
+    List<BuildTargetChangeInfo> changedTargets = buildTargetManager.store(sourceSets,
+        getDisplayNameMaker());
+    cacheBuildTargets(earlier, true);
+    return changedTargets;
+  }
+
+  /**
+   * re-query only the given projects and the projects that depend on them.
+   * Dependents are included as their classpaths are rewritten to reference the outputs of
+   * the projects they depend on.
+   */
+  private List<BuildTargetChangeInfo> updateBuildTargets(Set<File> projectDirs,
+      BuildFingerprint earlier, CancellationToken cancelToken) {
+    Set<File> affectedProjectDirs = new HashSet<>(projectDirs);
+    affectedProjectDirs.addAll(buildTargetManager.getDependentProjectDirs(projectDirs));
+    LOGGER.info("Reloading " + affectedProjectDirs.size() + " projects.");
+    if (earlier == null) {
+      earlier = getFingerprint();
+    }
+    GradleSourceSets sourceSets = connector.getGradleSourceSets(preferenceManager.getRootUri(),
+        affectedProjectDirs, client, cancelToken);
+    List<BuildTargetChangeInfo> changedTargets = buildTargetManager.storeProjects(sourceSets,
+        affectedProjectDirs, getDisplayNameMaker());
+    cacheBuildTargets(earlier, true);
+    return changedTargets;
+  }
+
+  private Function<GradleSourceSet, String> getDisplayNameMaker() {
+    return Utils.getDisplayNameMaker(preferenceManager.getPreferences());
+  }
+
+  private GradleSourceSets getStoredSourceSets() {
+    return new DefaultGradleSourceSets(
+        buildTargetManager.getAllGradleBuildTargets().stream()
+            .map(GradleBuildTarget::getSourceSet)
+            .collect(Collectors.toList()));
+  }
+
+  private BuildFingerprint getFingerprint() {
+    return sourceSetsCache.getFingerprint(getStoredSourceSets());
+  }
+
+  /**
+   * fingerprint the build files of the stored build targets and optionally persist them.
+   * The build files are then watched so changes to them reload the build targets.
+   * Saving and watching are left to the cache updater as their cost grows with the build.
+   *
+   * @param earlier the fingerprint taken before the build targets were fetched, or null
+   *     if they weren't fetched from Gradle
+   */
+  private void cacheBuildTargets(BuildFingerprint earlier, boolean save) {
+    GradleSourceSets sourceSets = getStoredSourceSets();
+    BuildFingerprint current = sourceSetsCache.getFingerprint(sourceSets, earlier);
+    fingerprint = current;
+    URI rootUri = preferenceManager.getRootUri();
+    Runnable update = () -> {
+      if (save) {
+        sourceSetsCache.save(sourceSets, current);
+      }
+      if (buildFileWatcher != null && rootUri != null) {
+        buildFileWatcher.watch(new File(rootUri), sourceSets);
+      }
+    };
+    if (pendingCacheUpdate.getAndSet(update) == null) {
+      try {
+        cacheUpdater.execute(() -> pendingCacheUpdate.getAndSet(null).run());
+      } catch (RejectedExecutionException e) {
+        // the service has been shut down.
+      }
+    }
   }
 
+  /**
+   * Get the build target manager, loading the build targets the first time.
+   * Concurrent callers share the same load.
+   */
   private BuildTargetManager getBuildTargetManager(CancellationToken cancelToken) {
-    if (firstTime) {
-      updateBuildTargets(cancelToken);
-      firstTime = false;
-      int buildTargetCount = buildTargetManager.getAllGradleBuildTargets().size();
-      Map<String, String> map = TelemetryUtils.getMetadataMap("buildTargetCount",
-          String.valueOf(buildTargetCount));
-      LOGGER.log(Level.INFO, "Found " + buildTargetCount + " build targets during initialization.",
-          map);
+    while (true) {
+      CompletableFuture<Void> load;
+      boolean owner = false;
+      synchronized (loadLock) {
+        if (initialLoad == null || initialLoad.isCompletedExceptionally()) {
+          initialLoad = new CompletableFuture<>();
+          owner = true;
+        }
+        load = initialLoad;
+      }
+      if (owner) {
+        boolean fromCache;
+        try {
+          fromCache = loadBuildTargets(cancelToken);
+          load.complete(null);
+        } catch (RuntimeException e) {
+          load.completeExceptionally(e);
+          throw e;
+        }
+        if (fromCache) {
+          // the cache only covers the build files so Gradle must still confirm the model.
+          // Any differences are sent to the client as `buildTarget/didChange`.
+          CompletableFuture.runAsync(() -> reloadWorkspace(null));
+        }
+        return buildTargetManager;
+      }
+      try {
+        load.join();
+        return buildTargetManager;
+      } catch (CompletionException e) {
+        // the load was cancelled by the request that started it so try again with this one.
+        if (isCancelled(cancelToken)
+            || ExceptionUtils.indexOfType(e, BuildCancelledException.class) < 0) {
+          throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+      }
+    }
+  }
+
+  /**
+   * load the build targets from the cache or Gradle.
+   *
+   * @return true if the build targets were loaded from the cache
+   */
+  private boolean loadBuildTargets(CancellationToken cancelToken) {
+    boolean fromCache;
+    GradleSourceSets cachedSourceSets = sourceSetsCache.load();
+    if (cachedSourceSets != null) {
+      buildTargetManager.store(cachedSourceSets, getDisplayNameMaker());
+      cacheBuildTargets(null, false);
+      fromCache = true;
+    } else {
+      updateBuildTargets(null, cancelToken);
+      fromCache = false;
+    }
+    int buildTargetCount = buildTargetManager.getAllGradleBuildTargets().size();
+    Map<String, String> map = TelemetryUtils.getMetadataMap("buildTargetCount",
+        String.valueOf(buildTargetCount));
+    LOGGER.log(Level.INFO, "Found " + buildTargetCount + " build targets during initialization.",
+        map);
+    return fromCache;
+  }
+
+  private boolean isLoaded() {
+    synchronized (loadLock) {
+      return initialLoad != null && initialLoad.isDone() && !initialLoad.isCompletedExceptionally();
     }
-    return buildTargetManager;
   }
 
   /**
-   * reload the sourcesets from scratch and notify the BSP client if they have changed.
+   * reload the sourcesets and notify the BSP client if they have changed.
+   * If only the build files of some projects have changed then only those projects
+   * and their dependents are reloaded, otherwise the whole workspace is reloaded.
    *
    * @param cancelToken token to cancel Gradle command
    */
   public void reloadWorkspace(CancellationToken cancelToken) {
     // if the workspace hasn't been retrieved yet then do nothing here.
-    if (!firstTime) {
-      List<BuildTargetChangeInfo> changedTargets = updateBuildTargets(cancelToken);
-      if (!changedTargets.isEmpty()) {
+    if (isLoaded()) {
+      BuildFingerprint current = getFingerprint();
+      Set<File> changedProjectDirs = getChangedProjectDirs(current);
+      if (changedProjectDirs == null || changedProjectDirs.isEmpty()) {
+        reload(null, current, cancelToken);
+      } else {
+        reload(changedProjectDirs, current, cancelToken);
+      }
+    }
+  }
+
+  /**
+   * reload the sourcesets of the given projects, and of any projects whose build files
+   * have changed, and notify the BSP client if they have changed.
+   *
+   * @param projectDirs the project dirs to reload or null to reload the whole workspace
+   * @param cancelToken token to cancel Gradle command
+   */
+  public void reloadProjects(Set<File> projectDirs, CancellationToken cancelToken) {
+    // if the workspace hasn't been retrieved yet then do nothing here.
+    if (isLoaded()) {
+      BuildFingerprint current = getFingerprint();
+      Set<File> changedProjectDirs = getChangedProjectDirs(current);
+      if (changedProjectDirs == null || projectDirs == null) {
+        reload(null, current, cancelToken);
+      } else {
+        changedProjectDirs.addAll(projectDirs);
+        if (!changedProjectDirs.isEmpty()) {
+          reload(changedProjectDirs, current, cancelToken);
+        }
+      }
+    }
+  }
+
+  /**
+   * Only one reload runs at a time.  A new reload cancels the running reload, as its
+   * result is already stale, and takes over its projects as well as the projects of any
+   * other reloads waiting to run.  So any waiting reloads share the one Gradle fetch.
+   * The fetch is also cancelled if the caller that runs it is cancelled.
+   *
+   * @param projectDirs the project dirs to reload or null to reload the whole workspace
+   * @param current the fingerprint of the build files taken by the caller
+   * @param cancelToken token to cancel Gradle command
+   */
+  private void reload(Set<File> projectDirs, BuildFingerprint current,
+      CancellationToken cancelToken) {
+    synchronized (pendingReloadLock) {
+      addPendingReload(projectDirs);
+      if (pendingReloadFingerprint == null) {
+        pendingReloadFingerprint = current;
+      }
+      if (runningReload != null) {
+        runningReload.cancel();
+      }
+    }
+    reloadLock.lock();
+    try {
+      Set<File> reloadProjectDirs;
+      BuildFingerprint earlier;
+      CancellationTokenSource tokenSource = GradleConnector.newCancellationTokenSource();
+      synchronized (pendingReloadLock) {
+        if (!pendingWorkspaceReload && pendingReloadProjectDirs.isEmpty()) {
+          // already reloaded by another caller.
+          return;
+        }
+        reloadProjectDirs = pendingWorkspaceReload ? null : pendingReloadProjectDirs;
+        pendingWorkspaceReload = false;
+        pendingReloadProjectDirs = new HashSet<>();
+        earlier = pendingReloadFingerprint;
+        pendingReloadFingerprint = null;
+        runningReload = tokenSource;
+      }
+      ScheduledFuture<?> cancelLink = linkCancellation(cancelToken, tokenSource);
+      try {
+        List<BuildTargetChangeInfo> changedTargets = reloadProjectDirs == null
+            ? updateBuildTargets(earlier, tokenSource.token())
+            : updateBuildTargets(reloadProjectDirs, earlier, tokenSource.token());
         notifyBuildTargetsChanged(changedTargets);
+      } catch (RuntimeException e) {
+        if (!tokenSource.token().isCancellationRequested()) {
+          throw e;
+        }
+        // superseded so leave the projects for the newer reload.
+        synchronized (pendingReloadLock) {
+          addPendingReload(reloadProjectDirs);
+          if (pendingReloadFingerprint == null) {
+            pendingReloadFingerprint = earlier;
+          }
+        }
+      } finally {
+        if (cancelLink != null) {
+          cancelLink.cancel(false);
+        }
+        synchronized (pendingReloadLock) {
+          runningReload = null;
+        }
+      }
+    } finally {
+      reloadLock.unlock();
+    }
+  }
+
+  /**
+   * Gradle cancellation tokens can't be listened to, so the caller's token is polled
+   * and the reload cancelled once the caller has been cancelled.
+   *
+   * @return the polling task, or null if the caller can't be cancelled
+   */
+  private ScheduledFuture<?> linkCancellation(CancellationToken cancelToken,
+      CancellationTokenSource tokenSource) {
+    if (cancelToken == null) {
+      return null;
+    }
+    return CANCEL_POLLER.scheduleWithFixedDelay(() -> {
+      if (cancelToken.isCancellationRequested()) {
+        tokenSource.cancel();
       }
+    }, 0, CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private void addPendingReload(Set<File> projectDirs) {
+    if (projectDirs == null) {
+      pendingWorkspaceReload = true;
+    } else {
+      pendingReloadProjectDirs.addAll(projectDirs);
+    }
+  }
+
+  /**
+   * compare the build files against those of the stored build targets.
+   *
+   * @param current the fingerprint of the build files now
+   * @return the dirs of projects whose build files have changed or null if a build wide
+   *     file has changed.
+   */
+  private Set<File> getChangedProjectDirs(BuildFingerprint current) {
+    BuildFingerprint previous = fingerprint;
+    if (previous == null || current == null) {
+      return null;
     }
+    return current.getChangedProjectDirs(previous);
   }
 
   private void notifyBuildTargetsChanged(List<BuildTargetChangeInfo> changedTargets) {
+    changeAggregator.add(changedTargets);
+  }
+
+  private void sendBuildTargetsChanged(List<BuildTargetChangeInfo> changedTargets) {
     List<BuildTargetEvent> events = changedTargets.stream()
         .map(changeInfo -> {
           BuildTargetEvent event = new BuildTargetEvent(changeInfo.getBtId());
           if (changeInfo.hasChanged()) {
             event.setKind(BuildTargetEventKind.CHANGED);
             event.setDataKind("SourceSetChange");
-            event.setData(changeInfo.getDifference());
+            event.setData(new SourceSetChange(changeInfo));
           } else if (changeInfo.isAdded()) {
             event.setKind(BuildTargetEventKind.CREATED);
           } else if (changeInfo.isRemoved()) {
@@ -330,31 +730,17 @@ public class BuildTargetService {
           continue;
         }
 
-        GradleSourceSet sourceSet = target.getSourceSet();
         List<OutputPathItem> outputPaths = new ArrayList<>();
-
-        Set<File> sourceOutputDirs = sourceSet.getSourceOutputDirs();
-        if (sourceOutputDirs != null) {
-          String suffix = preferenceManager.getPreferences().getUseQualifiedOutputPaths()
-              ? "?kind=source" : "";
-          for (File sourceOutputDir : sourceOutputDirs) {
-            outputPaths.add(new OutputPathItem(
-                sourceOutputDir.toPath().toUri() + suffix,
-                OutputPathItemKind.DIRECTORY
-            ));
-          }
+        boolean qualified = preferenceManager.getPreferences().getUseQualifiedOutputPaths();
+        String sourceSuffix = qualified ? "?kind=source" : "";
+        for (String sourceOutputDir : target.getSourceOutputDirs()) {
+          outputPaths.add(new OutputPathItem(sourceOutputDir + sourceSuffix,
+              OutputPathItemKind.DIRECTORY));
         }
-
-        Set<File> resourceOutputDirs = sourceSet.getResourceOutputDirs();
-        if (resourceOutputDirs != null) {
-          String suffix = preferenceManager.getPreferences().getUseQualifiedOutputPaths() 
-              ? "?kind=resource" : "";
-          for (File resourceOutputDir : resourceOutputDirs) {
-            outputPaths.add(new OutputPathItem(
-                resourceOutputDir.toPath().toUri() + suffix,
-                OutputPathItemKind.DIRECTORY
-            ));
-          }
+        String resourceSuffix = qualified ? "?kind=resource" : "";
+        for (String resourceOutputDir : target.getResourceOutputDirs()) {
+          outputPaths.add(new OutputPathItem(resourceOutputDir + resourceSuffix,
+              OutputPathItemKind.DIRECTORY));
         }
 
         OutputPathsItem item = new OutputPathsItem(btId, outputPaths);
@@ -376,14 +762,39 @@ public class BuildTargetService {
     String source = params.getTextDocument().getUri();
     URI uri = UriUtils.getUriFromString(source);
     Path path = Path.of(uri);
-    Map<Path, BuildTargetIdentifier> sources = buildTargetManager.getSourceDirsMap();
-    List<BuildTargetIdentifier> btIds = new ArrayList<>();
-    for (Map.Entry<Path, BuildTargetIdentifier> entry : sources.entrySet()) {
-      if (path.startsWith(entry.getKey())) {
-        btIds.add(entry.getValue());
+    List<BuildTargetIdentifier> btIds = buildTargetManager.getSourceDirsTrie().getValues(path);
+    return new InverseSourcesResult(btIds);
+  }
+
+  /**
+   * Get inverse sources of many documents at once.
+   * A document that isn't a file, such as an unsaved one, has no build targets rather than
+   * failing the whole batch.
+   *
+   * @param params documents to retrieve inverse sources for
+   * @param cancelToken token to cancel Gradle command
+   * @return the inverse sources of each document, in the order of the documents
+   */
+  public InverseSourcesBatchResult getBuildTargetInverseSourcesBatch(
+      InverseSourcesBatchParams params, CancellationToken cancelToken) {
+    PathTrie<BuildTargetIdentifier> sourceDirsTrie = buildTargetManager.getSourceDirsTrie();
+    List<InverseSourcesBatchItem> items = new ArrayList<>();
+    for (TextDocumentIdentifier textDocument : params.getTextDocuments()) {
+      if (isCancelled(cancelToken)) {
+        // the items are matched to the documents by position so don't return some of them.
+        throw new CancellationException();
+      }
+      List<BuildTargetIdentifier> btIds;
+      try {
+        URI uri = UriUtils.getUriFromString(textDocument.getUri());
+        btIds = sourceDirsTrie.getValues(Path.of(uri));
+      } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+        LOGGER.fine("No inverse sources for unsupported URI: " + textDocument.getUri());
+        btIds = new ArrayList<>();
       }
+      items.add(new InverseSourcesBatchItem(textDocument, btIds));
     }
-    return new InverseSourcesResult(btIds);
+    return new InverseSourcesBatchResult(items);
   }
 
   /**
@@ -405,17 +816,7 @@ public class BuildTargetService {
           continue;
         }
 
-        GradleSourceSet sourceSet = target.getSourceSet();
-        List<String> sources = new ArrayList<>();
-        for (GradleModuleDependency dep : sourceSet.getModuleDependencies()) {
-          List<String> artifacts = dep.getArtifacts().stream()
-                  .filter(a -> "sources".equals(a.getClassifier()))
-                  .map(a -> a.getUri().toString())
-                  .toList();
-          sources.addAll(artifacts);
-        }
-
-        items.add(new DependencySourcesItem(btId, sources));
+        items.add(target.getDependencySources());
       }
     }
     return new DependencySourcesResult(items);
@@ -440,29 +841,7 @@ public class BuildTargetService {
           continue;
         }
 
-        GradleSourceSet sourceSet = target.getSourceSet();
-        List<DependencyModule> modules = new ArrayList<>();
-        for (GradleModuleDependency dep : sourceSet.getModuleDependencies()) {
-          DependencyModule module = new DependencyModule(dep.getModule(), dep.getVersion());
-          module.setDataKind(MAVEN_DATA_KIND);
-          List<MavenDependencyModuleArtifact> artifacts = dep.getArtifacts().stream().map(a -> {
-            MavenDependencyModuleArtifact artifact = new MavenDependencyModuleArtifact(
-                a.getUri().toString());
-            artifact.setClassifier(a.getClassifier());
-            return artifact;
-          }).collect(Collectors.toList());
-          MavenDependencyModule mavenModule = new MavenDependencyModule(
-              dep.getGroup(),
-              dep.getModule(),
-              dep.getVersion(),
-              artifacts
-          );
-          module.setData(mavenModule);
-          modules.add(module);
-        }
-
-        DependencyModulesItem item = new DependencyModulesItem(btId, modules);
-        items.add(item);
+        items.add(target.getDependencyModules());
       }
     }
     return new DependencyModulesResult(items);
@@ -479,26 +858,98 @@ public class BuildTargetService {
     if (params.getTargets().isEmpty()) {
       return new CompileResult(StatusCode.OK);
     } else {
-      ProgressReporter reporter = new CompileProgressReporter(client,
+      // fail this request alone if it has an unknown target rather than the whole batch.
+      params.getTargets().forEach(btId -> getBuildTaskName(btId, cancelToken));
+      CompileProgressReporter reporter = new CompileProgressReporter(client,
           params.getOriginId(), getFullTaskPathMap());
-      StatusCode code = runTasks(params.getTargets(), btId -> getBuildTaskName(btId, cancelToken),
-          reporter, cancelToken);
+      StatusCode code = compileCoalescer.compile(params.getTargets(), reporter, cancelToken);
       CompileResult result = new CompileResult(code);
       result.setOriginId(params.getOriginId());
+      return result;
+    }
+  }
 
-      // Schedule a task to refetch the build targets after compilation, this is to
-      // auto detect the source roots changes for those code generation framework,
-      // such as Protocol Buffer.
-      // This doesn't take into account compilation triggered from running main class or tests.
-      // This cannot be cancelled as it's not triggered from a BSP Client so the CompletableFuture
-      // is left in the ether.
-      // It could be shifted into the `GradleBuildServer#buildTargetCompile` and chained onto that
-      // result but that would delay the CompileResult
-      if (!Boolean.getBoolean("bsp.plugin.reloadworkspace.disabled")) {
-        CompletableFuture.runAsync(() -> reloadWorkspace(null));
+  /**
+   * Compile the targets of a batch of compile requests in a single build.
+   * When the build fails, a request whose build tasks all succeeded is still reported as OK
+   * so one request's compile errors don't fail the others in its batch.
+   */
+  private Map<CompileCoalescer.Request, StatusCode> compileBatch(
+      List<CompileCoalescer.Request> requests, CancellationToken cancelToken) {
+    Set<BuildTargetIdentifier> targets = new LinkedHashSet<>();
+    Map<CompileProgressReporter, Set<BuildTargetIdentifier>> reporters = new LinkedHashMap<>();
+    for (CompileCoalescer.Request request : requests) {
+      targets.addAll(request.getTargets());
+      reporters.put(request.getReporter(), new HashSet<>(request.getTargets()));
+    }
+    if (requests.size() > 1) {
+      LOGGER.fine("Compiling " + targets.size() + " build targets for "
+          + requests.size() + " requests.");
+    }
+    ProgressReporter reporter = requests.size() == 1 ? requests.get(0).getReporter()
+        : new CompileBatchReporter(getFullTaskPathMap(), reporters);
+    StatusCode code = runTasks(new ArrayList<>(targets),
+        btId -> getBuildTaskName(btId, cancelToken), reporter, cancelToken);
+
+    // Schedule a task to refetch the build targets after compilation, this is to
+    // auto detect the source roots changes for those code generation framework,
+    // such as Protocol Buffer.
+    // Only the projects that ran tasks are refetched and if every task was up-to-date
+    // or skipped then nothing is refetched, nor is anything after a cancelled build.
+    // This doesn't take into account compilation triggered from running main class or tests.
+    // This cannot be cancelled as it's not triggered from a BSP Client so the CompletableFuture
+    // is left in the ether.
+    // It could be shifted into the `GradleBuildServer#buildTargetCompile` and chained onto that
+    // result but that would delay the CompileResult
+    if ((code == StatusCode.OK || code == StatusCode.ERROR)
+        && !Boolean.getBoolean("bsp.plugin.reloadworkspace.disabled")) {
+      Set<String> executedTaskPaths = new HashSet<>();
+      reporters.keySet().forEach(r -> executedTaskPaths.addAll(r.getExecutedTaskPaths()));
+      if (!executedTaskPaths.isEmpty()) {
+        Set<File> projectDirs = getProjectDirs(executedTaskPaths);
+        CompletableFuture.runAsync(() -> reloadProjects(projectDirs, null));
       }
-      return result;
     }
+    Map<CompileCoalescer.Request, StatusCode> codes = new HashMap<>();
+    for (CompileCoalescer.Request request : requests) {
+      StatusCode requestCode = code;
+      if (code != StatusCode.OK) {
+        Set<String> succeeded = request.getReporter().getSucceededTaskPaths();
+        boolean allSucceeded = request.getTargets().stream()
+            .allMatch(btId -> succeeded.contains(getBuildTaskName(btId, cancelToken)));
+        if (allSucceeded) {
+          requestCode = StatusCode.OK;
+        }
+      }
+      codes.put(request, requestCode);
+    }
+    return codes;
+  }
+
+  /**
+   * find the projects that the given tasks belong to.
+   *
+   * @param taskPaths the full task paths
+   * @return the project dirs or null if a task cannot be matched to a known project
+   */
+  private Set<File> getProjectDirs(Set<String> taskPaths) {
+    Map<String, Set<File>> projectPathToDirs = new HashMap<>();
+    for (GradleBuildTarget buildTarget : buildTargetManager.getAllGradleBuildTargets()) {
+      GradleSourceSet sourceSet = buildTarget.getSourceSet();
+      projectPathToDirs.computeIfAbsent(sourceSet.getProjectPath(), k -> new HashSet<>())
+          .add(sourceSet.getProjectDir());
+    }
+    Set<File> projectDirs = new HashSet<>();
+    for (String taskPath : taskPaths) {
+      int index = taskPath.lastIndexOf(':');
+      String projectPath = index <= 0 ? ":" : taskPath.substring(0, index);
+      Set<File> dirs = projectPathToDirs.get(projectPath);
+      if (dirs == null) {
+        return null;
+      }
+      projectDirs.addAll(dirs);
+    }
+    return projectDirs;
   }
 
   /**
@@ -545,7 +996,8 @@ public class BuildTargetService {
         // remove duplicates as some tasks will have the same name for each sourceset e.g. clean.
         String[] tasks = entry.getValue().stream().map(taskNameCreator).distinct()
             .toArray(String[]::new);
-        code = connector.runTasks(entry.getKey(), reporter, tasks, cancelToken);
+        String gradleVersion = getGradleVersion(entry.getValue(), cancelToken);
+        code = connector.runTasks(entry.getKey(), reporter, tasks, cancelToken, gradleVersion);
         if (code == StatusCode.ERROR) {
           break;
         }
@@ -554,6 +1006,20 @@ public class BuildTargetService {
     return code;
   }
 
+  /**
+   * get the Gradle version of the build the targets belong to, or null if unknown.
+   */
+  private String getGradleVersion(Set<BuildTargetIdentifier> targets,
+      CancellationToken cancelToken) {
+    for (BuildTargetIdentifier btId : targets) {
+      GradleBuildTarget target = getGradleBuildTarget(btId, cancelToken);
+      if (target != null) {
+        return target.getSourceSet().getGradleVersion();
+      }
+    }
+    return null;
+  }
+
   /**
    * Get the Java compiler paths.
    *
@@ -573,11 +1039,7 @@ public class BuildTargetService {
           continue;
         }
 
-        GradleSourceSet sourceSet = target.getSourceSet();
-        List<String> classpath = sourceSet.getCompileClasspath().stream()
-            .map(file -> file.toPath().toUri().toString())
-            .collect(Collectors.toList());
-        items.add(new JvmCompileClasspathItem(btId, classpath));
+        items.add(new JvmCompileClasspathItem(btId, target.getCompileClasspath()));
       }
     }
     return new JvmCompileClasspathResult(items);
@@ -603,28 +1065,13 @@ public class BuildTargetService {
           continue;
         }
 
-        GradleSourceSet sourceSet = target.getSourceSet();
-        JavaExtension javaExtension = SupportedLanguages.JAVA.getExtension(sourceSet);
-        if (javaExtension == null) {
+        JavacOptionsItem item = target.getJavacOptions();
+        if (item == null) {
           LOGGER.fine("Skip javac options collection for the build target: " + btId.getUri()
               + ". Because the java extension cannot be found from source set.");
           continue;
         }
-        List<String> classpath = sourceSet.getCompileClasspath().stream()
-            .map(file -> file.toPath().toUri().toString())
-            .collect(Collectors.toList());
-        String classesDir;
-        if (javaExtension.getClassesDir() != null) {
-          classesDir = javaExtension.getClassesDir().toPath().toUri().toString();
-        } else {
-          classesDir = "";
-        }
-        items.add(new JavacOptionsItem(
-            btId,
-            javaExtension.getCompilerArgs(),
-            classpath,
-            classesDir
-        ));
+        items.add(item);
       }
     }
     return new JavacOptionsResult(items);
@@ -649,28 +1096,13 @@ public class BuildTargetService {
           continue;
         }
 
-        GradleSourceSet sourceSet = target.getSourceSet();
-        ScalaExtension scalaExtension = SupportedLanguages.SCALA.getExtension(sourceSet);
-        if (scalaExtension == null) {
+        ScalacOptionsItem item = target.getScalacOptions();
+        if (item == null) {
           LOGGER.fine("Skip scalac options collection for the build target: " + btId.getUri()
                   + ". Because the scalac extension cannot be found from source set.");
           continue;
         }
-        List<String> classpath = sourceSet.getCompileClasspath().stream()
-            .map(file -> file.toPath().toUri().toString())
-            .collect(Collectors.toList());
-        String classesDir;
-        if (scalaExtension.getClassesDir() != null) {
-          classesDir = scalaExtension.getClassesDir().toPath().toUri().toString();
-        } else {
-          classesDir = "";
-        }
-        items.add(new ScalacOptionsItem(
-            btId,
-            scalaExtension.getScalaCompilerArgs(),
-            classpath,
-            classesDir
-        ));
+        items.add(item);
       }
     }
     return new ScalacOptionsResult(items);
@@ -0,0 +1,91 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.services;
+
+import static com.microsoft.java.bs.core.Launcher.LOGGER;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Collects the paths that change within a short window of each other and passes them on
+ * together, so a burst of file changes, such as a branch switch, only costs one call to
+ * the Gradle daemons.
+ */
+class ChangedPathsBatcher {
+
+  private final long windowMillis;
+
+  private final Consumer<List<Path>> sender;
+
+  private final ScheduledExecutorService scheduler;
+
+  // the changed paths waiting to be sent, without duplicates.
+  private Set<Path> pending = new LinkedHashSet<>();
+
+  /**
+   * constructor.
+   *
+   * @param windowMillis how long to collect paths for before sending them, or 0 to send
+   *     each change straight away
+   * @param sender sends the changed paths
+   */
+  ChangedPathsBatcher(long windowMillis, Consumer<List<Path>> sender) {
+    this.windowMillis = windowMillis;
+    this.sender = sender;
+    this.scheduler = windowMillis > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "bsp-changed-paths");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+  }
+
+  /**
+   * Add changed paths, starting a new window if there isn't one open.
+   *
+   * @param paths the absolute paths that changed
+   */
+  void add(Collection<Path> paths) {
+    if (paths.isEmpty()) {
+      return;
+    }
+    if (scheduler == null) {
+      send(new ArrayList<>(paths));
+      return;
+    }
+    synchronized (this) {
+      boolean open = !pending.isEmpty();
+      pending.addAll(paths);
+      if (!open) {
+        scheduler.schedule(this::sendPending, windowMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private void sendPending() {
+    Set<Path> paths;
+    synchronized (this) {
+      paths = pending;
+      pending = new LinkedHashSet<>();
+    }
+    send(new ArrayList<>(paths));
+  }
+
+  private void send(List<Path> paths) {
+    try {
+      sender.accept(paths);
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Failed to send changed paths", e);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.gradle.tooling.CancellationToken;
+import org.gradle.tooling.CancellationTokenSource;
+import org.gradle.tooling.GradleConnector;
+
+import com.microsoft.java.bs.core.internal.reporter.CompileProgressReporter;
+import com.microsoft.java.bs.core.internal.utils.concurrent.RequestExecutor;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import ch.epfl.scala.bsp4j.StatusCode;
+
+/**
+ * Merges compile requests that arrive within a short window of each other into a single
+ * Gradle build, so a burst of requests only pays for one configuration phase.
+ * Each request in a batch gets the status of its own targets rather than of the whole build.
+ * The batch is only cancelled once all of its requests have been cancelled.
+ */
+class CompileCoalescer {
+
+  // how often a waiting request checks whether it has been cancelled.
+  private static final long POLL_MILLIS = 100;
+
+  /**
+   * Runs the build for a batch of requests and returns the status of each request.
+   */
+  @FunctionalInterface
+  interface BatchRunner {
+    Map<Request, StatusCode> run(List<Request> requests, CancellationToken cancelToken);
+  }
+
+  /**
+   * A compile request waiting on its batch.
+   */
+  static class Request {
+    private final List<BuildTargetIdentifier> targets;
+    private final CompileProgressReporter reporter;
+    private final CancellationToken cancelToken;
+    private final CompletableFuture<StatusCode> result = new CompletableFuture<>();
+
+    Request(List<BuildTargetIdentifier> targets, CompileProgressReporter reporter,
+        CancellationToken cancelToken) {
+      this.targets = targets;
+      this.reporter = reporter;
+      this.cancelToken = cancelToken;
+    }
+
+    List<BuildTargetIdentifier> getTargets() {
+      return targets;
+    }
+
+    CompileProgressReporter getReporter() {
+      return reporter;
+    }
+  }
+
+  private static class Batch {
+    private final List<Request> requests = new ArrayList<>();
+    private final Set<Request> cancelled = new HashSet<>();
+    private final CancellationTokenSource tokenSource =
+        GradleConnector.newCancellationTokenSource();
+    private boolean started;
+
+    synchronized void add(Request request) {
+      requests.add(request);
+    }
+
+    synchronized List<Request> start() {
+      started = true;
+      requests.removeAll(cancelled);
+      return new ArrayList<>(requests);
+    }
+
+    synchronized void cancel(Request request) {
+      cancelled.add(request);
+      if (started && cancelled.containsAll(requests)) {
+        tokenSource.cancel();
+      }
+    }
+  }
+
+  private final long windowMillis;
+
+  private final BatchRunner runner;
+
+  private final ExecutorService executor;
+
+  private Batch openBatch;
+
+  /**
+   * constructor.
+   *
+   * @param windowMillis how long a batch waits for more requests, or 0 to not batch
+   * @param runner runs the build for each batch
+   */
+  CompileCoalescer(long windowMillis, BatchRunner runner) {
+    this.windowMillis = windowMillis;
+    this.runner = runner;
+    this.executor = windowMillis > 0
+        ? RequestExecutor.newExecutorService("bsp-compile", 4) : null;
+  }
+
+  /**
+   * Compile the targets along with any other requests that arrive within the window.
+   *
+   * @param targets the targets to compile
+   * @param reporter the reporter of this request
+   * @param cancelToken token to cancel this request
+   * @return the status of the build
+   */
+  StatusCode compile(List<BuildTargetIdentifier> targets, CompileProgressReporter reporter,
+      CancellationToken cancelToken) {
+    Request request = new Request(targets, reporter, cancelToken);
+    if (executor == null) {
+      return getStatus(runner.run(List.of(request), cancelToken), request);
+    }
+    Batch batch;
+    synchronized (this) {
+      if (openBatch == null) {
+        Batch newBatch = new Batch();
+        openBatch = newBatch;
+        executor.execute(() -> run(newBatch));
+      }
+      batch = openBatch;
+      batch.add(request);
+    }
+    return await(batch, request);
+  }
+
+  private StatusCode await(Batch batch, Request request) {
+    while (true) {
+      try {
+        return request.result.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        if (request.cancelToken != null && request.cancelToken.isCancellationRequested()) {
+          batch.cancel(request);
+          return StatusCode.CANCELLED;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        batch.cancel(request);
+        return StatusCode.CANCELLED;
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  private void run(Batch batch) {
+    try {
+      Thread.sleep(windowMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      if (openBatch == batch) {
+        openBatch = null;
+      }
+    }
+    List<Request> requests = batch.start();
+    if (requests.isEmpty()) {
+      return;
+    }
+    try {
+      Map<Request, StatusCode> codes = runner.run(requests, batch.tokenSource.token());
+      requests.forEach(request -> request.result.complete(getStatus(codes, request)));
+    } catch (RuntimeException | Error e) {
+      requests.forEach(request -> request.result.completeExceptionally(e));
+    }
+  }
+
+  private static StatusCode getStatus(Map<Request, StatusCode> codes, Request request) {
+    return codes.getOrDefault(request, StatusCode.ERROR);
+  }
+}
@@ -35,6 +35,7 @@ import ch.epfl.scala.bsp4j.MessageType;
 import ch.epfl.scala.bsp4j.RunProvider;
 import ch.epfl.scala.bsp4j.ShowMessageParams;
 import ch.epfl.scala.bsp4j.TestProvider;
+import ch.epfl.scala.bsp4j.extended.BuildServerCapabilitiesEx;
 
 import com.google.gson.JsonSyntaxException;
 
@@ -152,7 +153,7 @@ public class LifecycleService {
   }
 
   private BuildServerCapabilities initializeServerCapabilities() {
-    BuildServerCapabilities capabilities = new BuildServerCapabilities();
+    BuildServerCapabilitiesEx capabilities = new BuildServerCapabilitiesEx();
     capabilities.setResourcesProvider(true);
     capabilities.setOutputPathsProvider(true);
     capabilities.setDependencyModulesProvider(true);
@@ -168,6 +169,8 @@ public class LifecycleService {
     capabilities.setJvmTestEnvironmentProvider(true);
     capabilities.setJvmCompileClasspathProvider(true);
     capabilities.setCargoFeaturesProvider(false);
+    capabilities.setInverseSourcesBatchProvider(true);
+    capabilities.setDidChangeFilesProvider(true);
     return capabilities;
   }
 
@@ -13,6 +13,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 
 import com.microsoft.java.bs.core.internal.gradle.Utils;
@@ -140,32 +141,64 @@ public class NamedPipeStream {
     int read(ByteBuffer byteBuffer) throws IOException;
   }
 
+  // large enough to move a whole framed message in a few system calls.
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   /**
    * NamedPipeInputStream.
    */
   private static class NamedPipeInputStream extends InputStream {
 
     private final PipeReader reader;
-    private final ByteBuffer buffer = ByteBuffer.allocate(1024);
-    private int readyBytes = 0;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).limit(0);
 
     private NamedPipeInputStream(PipeReader reader) {
       this.reader = reader;
     }
 
     @Override
-    public int read() throws IOException {
-      if (buffer.position() < readyBytes) {
-        return buffer.get() & 0xFF;
-      }
-      buffer.clear();
-      readyBytes = reader.read(buffer);
-      if (readyBytes == -1) {
+    public synchronized int read() throws IOException {
+      if (!fill()) {
         return -1; // EOF
       }
-      buffer.flip();
       return buffer.get() & 0xFF;
     }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+      Objects.checkFromIndexSize(off, len, b.length);
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1; // EOF
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public synchronized int available() {
+      return buffer.remaining();
+    }
+
+    /**
+     * read from the pipe if all buffered bytes have been consumed.
+     *
+     * @return false if the pipe has been closed.
+     */
+    private boolean fill() throws IOException {
+      while (!buffer.hasRemaining()) {
+        buffer.clear();
+        int readBytes = reader.read(buffer);
+        buffer.flip();
+        if (readBytes == -1) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 
   @FunctionalInterface
@@ -179,34 +212,38 @@ public class NamedPipeStream {
   private static class NamedPipeOutputStream extends OutputStream {
 
     private final PipeWriter writer;
-    private final ByteBuffer buffer = ByteBuffer.allocate(1);
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
 
     private NamedPipeOutputStream(PipeWriter writer) {
       this.writer = writer;
     }
 
     @Override
-    public void write(int b) throws IOException {
+    public synchronized void write(int b) throws IOException {
       buffer.clear();
       buffer.put((byte) b);
-      buffer.position(0);
-      writer.write(buffer);
+      buffer.flip();
+      drain();
     }
 
     @Override
-    public void write(byte[] b) throws IOException {
-      final int buffer_size = 1024;
-      int blocks = b.length / buffer_size;
-      int writeBytes = 0;
-      for (int i = 0; i <= blocks; i++) {
-        int offset = i * buffer_size;
-        int length = Math.min(b.length - writeBytes, buffer_size);
-        if (length <= 0) {
-          break;
-        }
-        writeBytes += length;
-        ByteBuffer localBuffer = ByteBuffer.wrap(b, offset, length);
-        writer.write(localBuffer);
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+      Objects.checkFromIndexSize(off, len, b.length);
+      while (len > 0) {
+        int count = Math.min(len, BUFFER_SIZE);
+        buffer.clear();
+        buffer.put(b, off, count);
+        buffer.flip();
+        drain();
+        off += count;
+        len -= count;
+      }
+    }
+
+    private void drain() throws IOException {
+      // the pipe may accept fewer bytes than were asked of it.
+      while (buffer.hasRemaining()) {
+        writer.write(buffer);
       }
     }
   }
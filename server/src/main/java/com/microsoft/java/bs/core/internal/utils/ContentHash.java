@@ -0,0 +1,211 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.utils;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A 128 bit hash of the content of an object graph, such as a Gradle source set.
+ * Objects with equal content have equal hashes, so a different hash shows that two
+ * objects differ without comparing them field by field.
+ * Fields are hashed in name order and lists in their own order.  The elements of sets and
+ * the entries of maps are hashed on their own and their hashes summed, so the iteration
+ * order of a set doesn't change the hash.
+ */
+public final class ContentHash {
+
+  // a digest for each level of set and map nesting, reused by every hash on the thread.
+  private static final ThreadLocal<List<MessageDigest>> DIGESTS =
+      ThreadLocal.withInitial(ArrayList::new);
+
+  private static final ClassValue<List<Field>> FIELDS = new ClassValue<>() {
+    @Override
+    protected List<Field> computeValue(Class<?> type) {
+      List<Field> fields = new ArrayList<>();
+      for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          int modifiers = field.getModifiers();
+          if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)
+              && !field.isSynthetic()) {
+            field.setAccessible(true);
+            fields.add(field);
+          }
+        }
+      }
+      fields.sort(Comparator.comparing(Field::getName)
+          .thenComparing(field -> field.getDeclaringClass().getName()));
+      return List.copyOf(fields);
+    }
+  };
+
+  private final long high;
+
+  private final long low;
+
+  private ContentHash(byte[] digest) {
+    ByteBuffer buffer = ByteBuffer.wrap(digest);
+    this.high = buffer.getLong();
+    this.low = buffer.getLong();
+  }
+
+  /**
+   * Hash the content of an object.
+   * Collections, maps, arrays, strings, numbers, enums and files are hashed by value and
+   * any other object by its non static, non transient fields.
+   *
+   * @param object the object to hash
+   * @return the hash of the object's content
+   */
+  public static ContentHash of(Object object) {
+    List<MessageDigest> digests = DIGESTS.get();
+    // a hash that failed part way through may have left data in the digests.
+    digests.forEach(MessageDigest::reset);
+    MessageDigest digest = getDigest(digests, 0);
+    update(digests, 0, digest, object);
+    return new ContentHash(digest.digest());
+  }
+
+  private static MessageDigest getDigest(List<MessageDigest> digests, int depth) {
+    if (digests.size() <= depth) {
+      digests.add(newDigest());
+    }
+    return digests.get(depth);
+  }
+
+  private static void update(List<MessageDigest> digests, int depth, MessageDigest digest,
+      Object object) {
+    if (object == null) {
+      digest.update((byte) 0);
+    } else if (object instanceof String || object instanceof Number
+        || object instanceof Boolean || object instanceof Character) {
+      updateString(digest, object.getClass().getName());
+      updateString(digest, object.toString());
+    } else if (object instanceof Enum<?> e) {
+      updateString(digest, e.getDeclaringClass().getName());
+      updateString(digest, e.name());
+    } else if (object instanceof File || object instanceof Path || object instanceof URI) {
+      updateString(digest, object.getClass().getName());
+      updateString(digest, object.toString());
+    } else if (object instanceof Set<?> set) {
+      updateUnordered(digests, depth, digest, 's', set);
+    } else if (object instanceof Map<?, ?> map) {
+      updateUnordered(digests, depth, digest, 'm', map.entrySet());
+    } else if (object instanceof Map.Entry<?, ?> entry) {
+      update(digests, depth, digest, entry.getKey());
+      update(digests, depth, digest, entry.getValue());
+    } else if (object instanceof Collection<?> collection) {
+      digest.update((byte) 'l');
+      updateInt(digest, collection.size());
+      for (Object element : collection) {
+        update(digests, depth, digest, element);
+      }
+    } else if (object.getClass().isArray()) {
+      int length = Array.getLength(object);
+      digest.update((byte) 'a');
+      updateInt(digest, length);
+      for (int i = 0; i < length; i++) {
+        update(digests, depth, digest, Array.get(object, i));
+      }
+    } else if (object.getClass().getName().startsWith("java.")) {
+      // the fields of JDK classes can't be read, so rely on their string form.
+      updateString(digest, object.getClass().getName());
+      updateString(digest, object.toString());
+    } else {
+      updateFields(digests, depth, digest, object);
+    }
+  }
+
+  private static void updateUnordered(List<MessageDigest> digests, int depth,
+      MessageDigest digest, char kind, Collection<?> elements) {
+    MessageDigest elementDigest = getDigest(digests, depth + 1);
+    long high = 0;
+    long low = 0;
+    for (Object element : elements) {
+      update(digests, depth + 1, elementDigest, element);
+      ByteBuffer buffer = ByteBuffer.wrap(elementDigest.digest());
+      high += buffer.getLong();
+      low += buffer.getLong();
+    }
+    digest.update((byte) kind);
+    updateInt(digest, elements.size());
+    updateLong(digest, high);
+    updateLong(digest, low);
+  }
+
+  private static void updateFields(List<MessageDigest> digests, int depth,
+      MessageDigest digest, Object object) {
+    updateString(digest, object.getClass().getName());
+    for (Field field : FIELDS.get(object.getClass())) {
+      updateString(digest, field.getName());
+      try {
+        update(digests, depth, digest, field.get(object));
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Cannot read field " + field, e);
+      }
+    }
+  }
+
+  private static void updateString(MessageDigest digest, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    updateInt(digest, bytes.length);
+    digest.update(bytes);
+  }
+
+  private static void updateInt(MessageDigest digest, int value) {
+    digest.update((byte) (value >>> 24));
+    digest.update((byte) (value >>> 16));
+    digest.update((byte) (value >>> 8));
+    digest.update((byte) value);
+  }
+
+  private static void updateLong(MessageDigest digest, long value) {
+    updateInt(digest, (int) (value >>> 32));
+    updateInt(digest, (int) value);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not available", e);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(high) * 31 + Long.hashCode(low);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    ContentHash other = (ContentHash) obj;
+    return high == other.high && low == other.low;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.utils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of directories, by path segment, to the values stored against them.
+ * Finding the directories that contain a path costs the depth of the path rather than
+ * the number of directories.
+ *
+ * @param <T> the value type
+ */
+public class PathTrie<T> {
+
+  private static final PathTrie<?> EMPTY = new PathTrie<>(new Node<>(
+      Collections.emptyMap(), Collections.emptyList()));
+
+  private final Node<T> root;
+
+  private PathTrie(Node<T> root) {
+    this.root = root;
+  }
+
+  /**
+   * an empty trie.
+   *
+   * @param <T> the value type
+   * @return the empty trie
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> PathTrie<T> empty() {
+    return (PathTrie<T>) EMPTY;
+  }
+
+  /**
+   * a builder to add directories to.
+   *
+   * @param <T> the value type
+   * @return the builder
+   */
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Get the values of every directory that the path is in or is equal to, outermost first.
+   * As with {@link Path#startsWith(Path)} the comparison is made on whole path segments.
+   *
+   * @param path the path to look up
+   * @return the values without duplicates
+   */
+  public List<T> getValues(Path path) {
+    List<T> result = new ArrayList<>();
+    Node<T> node = root.children.get(getRootKey(path));
+    if (node == null) {
+      return result;
+    }
+    addValues(result, node);
+    int count = path.getNameCount();
+    for (int i = 0; i < count && !node.children.isEmpty(); i++) {
+      node = node.children.get(path.getName(i));
+      if (node == null) {
+        break;
+      }
+      addValues(result, node);
+    }
+    return result;
+  }
+
+  private static <T> void addValues(List<T> result, Node<T> node) {
+    for (T value : node.values) {
+      if (!result.contains(value)) {
+        result.add(value);
+      }
+    }
+  }
+
+  /**
+   * paths are stored under their root component so relative and absolute paths with the
+   * same segments aren't confused.  The root is kept as a path, like the other segments,
+   * so it is compared the way the file system does e.g. ignoring drive letter case on Windows.
+   */
+  private static Object getRootKey(Path path) {
+    Path root = path.getRoot();
+    return root == null ? "" : root;
+  }
+
+  private static class Node<T> {
+    private final Map<Object, Node<T>> children;
+    private final List<T> values;
+
+    Node(Map<Object, Node<T>> children, List<T> values) {
+      this.children = children;
+      this.values = values;
+    }
+  }
+
+  /**
+   * Collects the directories to build a {@link PathTrie} from.
+   *
+   * @param <T> the value type
+   */
+  public static class Builder<T> {
+
+    private final MutableNode<T> root = new MutableNode<>();
+
+    private Builder() {
+    }
+
+    /**
+     * add a directory.
+     *
+     * @param dir the directory
+     * @param value the value to store against the directory
+     * @return this builder
+     */
+    public Builder<T> put(Path dir, T value) {
+      MutableNode<T> node = root.child(getRootKey(dir));
+      for (Path segment : dir) {
+        node = node.child(segment);
+      }
+      node.values.add(value);
+      return this;
+    }
+
+    /**
+     * create the trie.
+     *
+     * @return the immutable trie
+     */
+    public PathTrie<T> build() {
+      return new PathTrie<>(root.freeze());
+    }
+  }
+
+  private static class MutableNode<T> {
+    private final Map<Object, MutableNode<T>> children = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+
+    MutableNode<T> child(Object key) {
+      return children.computeIfAbsent(key, k -> new MutableNode<>());
+    }
+
+    Node<T> freeze() {
+      Map<Object, Node<T>> frozenChildren;
+      if (children.isEmpty()) {
+        frozenChildren = Collections.emptyMap();
+      } else {
+        frozenChildren = new HashMap<>(children.size() * 2);
+        children.forEach((key, child) -> frozenChildren.put(key, child.freeze()));
+      }
+      return new Node<>(frozenChildren, List.copyOf(values));
+    }
+  }
+}
@@ -0,0 +1,137 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.utils.concurrent;
+
+import static com.microsoft.java.bs.core.Launcher.LOGGER;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BSP requests on separate lanes so that requests answered from the build target
+ * model aren't queued behind requests that run Gradle builds.
+ * Uses virtual threads when running on Java 21+ and bounded thread pools otherwise.
+ * Configured with the system properties:
+ * <ul>
+ *   <li>{@code bsp.gradle.virtualThreads.disabled} - use thread pools even on Java 21+.</li>
+ *   <li>{@code bsp.gradle.queryThreads} - size of the model query pool.</li>
+ *   <li>{@code bsp.gradle.buildThreads} - size of the Gradle build pool.</li>
+ * </ul>
+ */
+public class RequestExecutor {
+
+  /**
+   * The lane a request runs on.
+   */
+  public enum Lane {
+    /** requests answered from the build target model. */
+    QUERY,
+    /** requests that run Gradle builds. */
+    BUILD
+  }
+
+  private final ExecutorService queryExecutor;
+
+  private final ExecutorService buildExecutor;
+
+  /**
+   * create the executors from the system properties.
+   */
+  public RequestExecutor() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    this.queryExecutor = newExecutorService("bsp-query",
+        Integer.getInteger("bsp.gradle.queryThreads", Math.max(2, processors)));
+    this.buildExecutor = newExecutorService("bsp-build",
+        Integer.getInteger("bsp.gradle.buildThreads", 4));
+  }
+
+  /**
+   * Get the executor for a lane.
+   *
+   * @param lane the lane
+   * @return the executor to run requests of that lane on
+   */
+  public ExecutorService getExecutor(Lane lane) {
+    return lane == Lane.QUERY ? queryExecutor : buildExecutor;
+  }
+
+  /**
+   * stop accepting new requests.
+   */
+  public void shutdown() {
+    queryExecutor.shutdown();
+    buildExecutor.shutdown();
+  }
+
+  /**
+   * Create an executor with a thread per task on Java 21+, or a pool that runs at most
+   * {@code threads} tasks at a time otherwise.
+   *
+   * @param name the thread name prefix
+   * @param threads the maximum number of pooled threads
+   * @return the executor
+   */
+  public static ExecutorService newExecutorService(String name, int threads) {
+    ExecutorService virtualExecutor = newVirtualThreadExecutor(name);
+    if (virtualExecutor != null) {
+      return virtualExecutor;
+    }
+    int poolSize = Math.max(1, threads);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DaemonThreadFactory(name));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * The server is compiled for Java 17 so virtual threads are only reachable through
+   * reflection.
+   */
+  private static ExecutorService newVirtualThreadExecutor(String name) {
+    if (Boolean.getBoolean("bsp.gradle.virtualThreads.disabled")) {
+      return null;
+    }
+    try {
+      // look the methods up on the public interface as the builder class isn't accessible.
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, name + "-", 0L);
+      ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      Method executorMethod = Executors.class
+          .getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+      return (ExecutorService) executorMethod.invoke(null, factory);
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      // virtual threads aren't available before Java 21.
+      return null;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOGGER.warning("Unable to create virtual threads: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final String name;
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    DaemonThreadFactory(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
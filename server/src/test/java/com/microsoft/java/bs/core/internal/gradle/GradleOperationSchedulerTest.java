@@ -0,0 +1,118 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.gradle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gradle.tooling.BuildCancelledException;
+import org.gradle.tooling.CancellationTokenSource;
+import org.gradle.tooling.GradleConnector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GradleOperationSchedulerTest {
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void testOperationsOnSameRootDontOverlap() throws Exception {
+    GradleOperationScheduler scheduler = new GradleOperationScheduler();
+    File root = new File("root");
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CompletableFuture<?>[] futures = new CompletableFuture<?>[4];
+    for (int i = 0; i < futures.length; i++) {
+      futures[i] = CompletableFuture.runAsync(() -> scheduler.run(root, "test", null, () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        sleep(50);
+        running.decrementAndGet();
+        return null;
+      }), executor);
+    }
+    CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+    assertEquals(1, maxRunning.get());
+  }
+
+  @Test
+  void testOperationsOnDifferentRootsOverlap() throws Exception {
+    GradleOperationScheduler scheduler = new GradleOperationScheduler();
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    CompletableFuture<?> first = CompletableFuture.runAsync(() ->
+        scheduler.run(new File("a"), "test", null, () -> {
+          bothStarted.countDown();
+          return await(bothStarted);
+        }), executor);
+    CompletableFuture<?> second = CompletableFuture.runAsync(() ->
+        scheduler.run(new File("b"), "test", null, () -> {
+          bothStarted.countDown();
+          return await(bothStarted);
+        }), executor);
+    CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void testCancelWhileQueued() throws Exception {
+    GradleOperationScheduler scheduler = new GradleOperationScheduler();
+    File root = new File("root");
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<?> running = CompletableFuture.runAsync(() ->
+        scheduler.run(root, "running", null, () -> {
+          started.countDown();
+          await(release);
+          return null;
+        }), executor);
+    started.await();
+
+    CancellationTokenSource tokenSource = GradleConnector.newCancellationTokenSource();
+    CompletableFuture<?> queued = CompletableFuture.runAsync(() ->
+        scheduler.run(root, "queued", tokenSource.token(), () -> null), executor);
+    tokenSource.cancel();
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> queued.get(10, TimeUnit.SECONDS));
+    assertInstanceOf(BuildCancelledException.class, e.getCause());
+
+    release.countDown();
+    running.get(10, TimeUnit.SECONDS);
+  }
+
+  private static Void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -4,14 +4,20 @@
 package com.microsoft.java.bs.core.internal.gradle;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.microsoft.java.bs.core.internal.model.Preferences;
 
@@ -24,6 +30,14 @@ class UtilsTest {
       "gradle-4.3-with-wrapper"
   ).toFile();
 
+  @TempDir
+  Path cacheDir;
+
+  @AfterEach
+  void tearDown() {
+    System.clearProperty("bsp.gradle.cacheDir");
+  }
+
   @Test
   void testGetFileFromProperty() {
     System.setProperty("test", "test");
@@ -70,4 +84,24 @@ class UtilsTest {
     assertEquals(GradleBuildKind.SPECIFIED_INSTALLATION,
         Utils.getEffectiveBuildKind(projectDir, preferences));
   }
+
+  @Test
+  void testPluginScriptUsesBundledJars() {
+    System.setProperty("bsp.gradle.cacheDir", cacheDir.toString());
+    String script = Utils.createPluginScript(projectDir, null, null);
+    assertTrue(script.contains("classpath files("), script);
+    assertFalse(script.contains("mavenCentral()"), script);
+  }
+
+  @Test
+  void testInitScriptFileReused() {
+    System.setProperty("bsp.gradle.cacheDir", cacheDir.toString());
+    File initScript1 = Utils.createInitScriptFile("test", "// script 1");
+    File initScript2 = Utils.createInitScriptFile("test", "// script 1");
+    File initScript3 = Utils.createInitScriptFile("test", "// script 2");
+    assertTrue(initScript1.isFile());
+    assertTrue(initScript1.toPath().startsWith(cacheDir), initScript1.toString());
+    assertEquals(initScript1, initScript2);
+    assertNotEquals(initScript1, initScript3);
+  }
 }
@@ -4,15 +4,18 @@
 package com.microsoft.java.bs.core.internal.managers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSet;
 import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSets;
@@ -23,6 +26,7 @@ import org.junit.jupiter.api.Test;
 import com.microsoft.java.bs.core.internal.log.BuildTargetChangeInfo;
 import com.microsoft.java.bs.core.internal.model.GradleBuildTarget;
 import com.microsoft.java.bs.gradle.model.BuildTargetDependency;
+import com.microsoft.java.bs.gradle.model.GradleSourceSet;
 import com.microsoft.java.bs.gradle.model.GradleTestTask;
 import com.microsoft.java.bs.gradle.model.LanguageExtension;
 import com.microsoft.java.bs.gradle.model.SupportedLanguages;
@@ -128,6 +132,83 @@ class BuildTargetManagerTest {
     assertTrue(buildTargetBar.getDependencies().contains(buildTargetFoo.getId()));
   }
 
+  @Test
+  void testStoreProjects() {
+    File fooProjectDir = new File("foo").getAbsoluteFile();
+    File fooClassesDir = new File(fooProjectDir, "classes");
+    DefaultGradleSourceSet gradleSourceSetFoo = getLinkableGradleSourceSet();
+    gradleSourceSetFoo.setProjectPath(":foo");
+    gradleSourceSetFoo.setProjectDir(fooProjectDir);
+    gradleSourceSetFoo.setSourceOutputDirs(Set.of(fooClassesDir));
+    DefaultGradleSourceSet gradleSourceSetBar = getLinkableGradleSourceSet();
+    gradleSourceSetBar.setProjectPath(":bar");
+    gradleSourceSetBar.setProjectDir(new File("bar").getAbsoluteFile());
+    gradleSourceSetBar.setCompileClasspath(List.of(fooClassesDir));
+    gradleSourceSetBar.setBuildTargetDependencies(
+        Set.of(new DefaultBuildTargetDependency(gradleSourceSetFoo)));
+
+    BuildTargetManager manager = new BuildTargetManager();
+    manager.store(new DefaultGradleSourceSets(List.of(gradleSourceSetFoo, gradleSourceSetBar)),
+        GradleSourceSet::getProjectPath);
+    assertEquals(Set.of(gradleSourceSetBar.getProjectDir()),
+        manager.getDependentProjectDirs(Set.of(fooProjectDir)));
+
+    DefaultGradleSourceSet newSourceSetFoo = getLinkableGradleSourceSet();
+    newSourceSetFoo.setProjectPath(":foo");
+    newSourceSetFoo.setProjectDir(fooProjectDir);
+    newSourceSetFoo.setSourceOutputDirs(Set.of(fooClassesDir));
+    newSourceSetFoo.setSourceDirs(Set.of(new File(fooProjectDir, "src")));
+    List<BuildTargetChangeInfo> changes = manager.storeProjects(
+        new DefaultGradleSourceSets(List.of(newSourceSetFoo)), Set.of(fooProjectDir),
+        GradleSourceSet::getProjectPath);
+
+    // bar's dependents are affected by a foo change too.
+    File bazProjectDir = new File("baz").getAbsoluteFile();
+    DefaultGradleSourceSet gradleSourceSetBaz = getLinkableGradleSourceSet();
+    gradleSourceSetBaz.setProjectPath(":baz");
+    gradleSourceSetBaz.setProjectDir(bazProjectDir);
+    gradleSourceSetBaz.setBuildTargetDependencies(
+        Set.of(new DefaultBuildTargetDependency(gradleSourceSetBar)));
+    BuildTargetManager chainManager = new BuildTargetManager();
+    chainManager.store(new DefaultGradleSourceSets(List.of(gradleSourceSetFoo,
+        gradleSourceSetBar, gradleSourceSetBaz)), GradleSourceSet::getProjectPath);
+    assertEquals(Set.of(gradleSourceSetBar.getProjectDir(), bazProjectDir),
+        chainManager.getDependentProjectDirs(Set.of(fooProjectDir)));
+
+    // only foo has changed, bar still depends on it.
+    assertEquals(1, changes.size());
+    assertTrue(changes.get(0).getBtId().getUri().contains("foo"));
+    assertEquals(2, manager.getAllGradleBuildTargets().size());
+    assertEquals(Set.of(fooProjectDir.getAbsolutePath()),
+        manager.getAllGradleBuildTargets().stream()
+            .filter(bt -> bt.getBuildTarget().getId().getUri().contains("bar"))
+            .flatMap(bt -> bt.getSourceSet().getBuildTargetDependencies().stream())
+            .map(BuildTargetDependency::getProjectDir)
+            .collect(Collectors.toSet()));
+  }
+
+  @Test
+  void testGetBuildRootDir() {
+    File rootDir = new File("workspace").getAbsoluteFile();
+    File includedRootDir = new File(rootDir, "included");
+    DefaultGradleSourceSet appSourceSet = getTestGradleSourceSet();
+    appSourceSet.setProjectDir(new File(rootDir, "app"));
+    appSourceSet.setRootDir(rootDir);
+    DefaultGradleSourceSet libSourceSet = getTestGradleSourceSet();
+    libSourceSet.setProjectDir(new File(includedRootDir, "lib"));
+    libSourceSet.setRootDir(includedRootDir);
+    BuildTargetManager manager = new BuildTargetManager();
+    manager.store(new DefaultGradleSourceSets(List.of(appSourceSet, libSourceSet)));
+
+    assertEquals(rootDir, manager.getBuildRootDir(
+        new File(rootDir, "app/src/main/java/Foo.java").toPath()));
+    assertEquals(rootDir, manager.getBuildRootDir(
+        new File(rootDir, "settings.gradle").toPath()));
+    assertEquals(includedRootDir, manager.getBuildRootDir(
+        new File(includedRootDir, "lib/build.gradle").toPath()));
+    assertNull(manager.getBuildRootDir(new File("other/Foo.java").getAbsoluteFile().toPath()));
+  }
+
   @Test
   void testDidChange() {
     DefaultGradleSourceSet sourceSet1 = getTestGradleSourceSet();
@@ -138,8 +219,27 @@ class BuildTargetManagerTest {
     DefaultJavaExtension javaExt2 = getTestJavaExtension();
     javaExt2.setSourceCompatibility("9");
     sourceSet2.getExtensions().put(SupportedLanguages.JAVA.getBspName(), javaExt2);
-    assertEquals("GradleSourceSet: (ProjectDir: (test -> was test), Extensions: (0: (key:java"
-        + " value: (SourceCompatibility: (17 -> 9)))))", change.getDifference());
+    assertEquals("GradleSourceSet: (ProjectDir: (test -> was test), Extensions: (java:"
+        + " (SourceCompatibility: (17 -> 9))))", change.getDifference());
+  }
+
+  @Test
+  void testDidChangeCollections() {
+    DefaultGradleSourceSet sourceSet1 = getTestGradleSourceSet();
+    DefaultGradleSourceSet sourceSet2 = getTestGradleSourceSet();
+    sourceSet1.setSourceDirs(Set.of(new File("a"), new File("b")));
+    sourceSet2.setSourceDirs(Set.of(new File("b"), new File("c")));
+    List<File> classpath = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      classpath.add(new File(i + ".jar"));
+    }
+    sourceSet1.setCompileClasspath(classpath.subList(0, 10));
+    sourceSet2.setCompileClasspath(classpath);
+    BuildTargetChangeInfo change = new BuildTargetChangeInfo(null, sourceSet1, sourceSet2);
+    String difference = change.getDifference();
+    assertTrue(difference.startsWith("GradleSourceSet: (SourceDirs: (added: [c], removed: [a]),"
+        + " CompileClasspath: (added: ["), difference);
+    assertTrue(difference.endsWith(", ... 70 more])))"), difference);
   }
 
   private DefaultJavaExtension getTestJavaExtension() {
@@ -150,6 +250,19 @@ class BuildTargetManagerTest {
     return javaExtension;
   }
 
+  private DefaultGradleSourceSet getLinkableGradleSourceSet() {
+    DefaultGradleSourceSet sourceSet = getTestGradleSourceSet();
+    sourceSet.setTaskNames(Collections.emptySet());
+    sourceSet.setSourceOutputDirs(Collections.emptySet());
+    sourceSet.setResourceOutputDirs(Collections.emptySet());
+    sourceSet.setArchiveOutputFiles(Collections.emptyMap());
+    sourceSet.setCompileClasspath(Collections.emptyList());
+    sourceSet.setRuntimeClasspath(Collections.emptyList());
+    sourceSet.setTestTasks(Collections.emptySet());
+    sourceSet.setRunTasks(Collections.emptySet());
+    return sourceSet;
+  }
+
   private DefaultGradleSourceSet getTestGradleSourceSet() {
     DefaultGradleSourceSet sourceSet = new DefaultGradleSourceSet();
     sourceSet.setGradleVersion("8.0");
@@ -0,0 +1,136 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.microsoft.java.bs.core.internal.model.BuildFingerprint;
+import com.microsoft.java.bs.core.internal.model.Preferences;
+import com.microsoft.java.bs.gradle.model.GradleSourceSets;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSet;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSets;
+
+class SourceSetsCacheTest {
+
+  @TempDir
+  Path rootDir;
+
+  @Test
+  void testRoundTrip() throws IOException {
+    Path projectDir = createProject("a");
+    SourceSetsCache cache = new SourceSetsCache(getPreferenceManager());
+    GradleSourceSets sourceSets = getSourceSets(projectDir.toFile());
+    cache.save(sourceSets, cache.getFingerprint(sourceSets));
+
+    assertEquals(sourceSets, cache.load());
+  }
+
+  @Test
+  void testProjectBuildFileChanged() throws IOException {
+    Path projectDir = createProject("a");
+    SourceSetsCache cache = new SourceSetsCache(getPreferenceManager());
+    save(cache, getSourceSets(projectDir.toFile()));
+
+    Files.writeString(projectDir.resolve("build.gradle"), "apply plugin: 'java-library'");
+    assertNull(cache.load());
+  }
+
+  @Test
+  void testVersionCatalogChanged() throws IOException {
+    Path projectDir = createProject("a");
+    SourceSetsCache cache = new SourceSetsCache(getPreferenceManager());
+    save(cache, getSourceSets(projectDir.toFile()));
+
+    Path gradleDir = Files.createDirectories(rootDir.resolve("gradle"));
+    Files.writeString(gradleDir.resolve("libs.versions.toml"), "[versions]");
+    assertNull(cache.load());
+  }
+
+  @Test
+  void testPreferencesChanged() throws IOException {
+    Path projectDir = createProject("a");
+    PreferenceManager preferenceManager = getPreferenceManager();
+    SourceSetsCache cache = new SourceSetsCache(preferenceManager);
+    save(cache, getSourceSets(projectDir.toFile()));
+
+    preferenceManager.getPreferences().setGradleVersion("8.12");
+    assertNull(cache.load());
+  }
+
+  @Test
+  void testChangedProjectDirs() throws IOException {
+    Path projectDir = createProject("a");
+    SourceSetsCache cache = new SourceSetsCache(getPreferenceManager());
+    GradleSourceSets sourceSets = getSourceSets(projectDir.toFile());
+    BuildFingerprint before = cache.getFingerprint(sourceSets);
+
+    Files.writeString(projectDir.resolve("build.gradle"), "apply plugin: 'java-library'");
+    assertEquals(Set.of(projectDir.toFile()),
+        cache.getFingerprint(sourceSets).getChangedProjectDirs(before));
+
+    Files.writeString(rootDir.resolve("settings.gradle"), "include 'a', 'b'");
+    assertNull(cache.getFingerprint(sourceSets).getChangedProjectDirs(before));
+  }
+
+  @Test
+  void testChangedDuringLoad() throws IOException {
+    Path projectDir = createProject("a");
+    SourceSetsCache cache = new SourceSetsCache(getPreferenceManager());
+    BuildFingerprint earlier = cache.getFingerprint(getSourceSets(projectDir.toFile()));
+
+    // the build file changes and a new project is added while the source sets load.
+    Files.writeString(projectDir.resolve("build.gradle"), "apply plugin: 'java-library'");
+    Path newProjectDir = Files.createDirectories(rootDir.resolve("b"));
+    Files.writeString(newProjectDir.resolve("build.gradle"), "apply plugin: 'java'");
+    GradleSourceSets loaded = new DefaultGradleSourceSets(List.of(
+        getSourceSets(projectDir.toFile()).getGradleSourceSets().get(0),
+        getSourceSets(newProjectDir.toFile()).getGradleSourceSets().get(0)));
+    BuildFingerprint fingerprint = cache.getFingerprint(loaded, earlier);
+
+    assertEquals(Set.of(projectDir.toFile()),
+        cache.getFingerprint(loaded).getChangedProjectDirs(fingerprint));
+  }
+
+  private void save(SourceSetsCache cache, GradleSourceSets sourceSets) {
+    cache.save(sourceSets, cache.getFingerprint(sourceSets));
+  }
+
+  private Path createProject(String name) throws IOException {
+    Files.writeString(rootDir.resolve("settings.gradle"), "include '" + name + "'");
+    Path projectDir = Files.createDirectories(rootDir.resolve(name));
+    Files.writeString(projectDir.resolve("build.gradle"), "apply plugin: 'java'");
+    return projectDir;
+  }
+
+  private PreferenceManager getPreferenceManager() {
+    PreferenceManager preferenceManager = new PreferenceManager();
+    preferenceManager.setPreferences(new Preferences());
+    preferenceManager.setRootUri(rootDir.toUri());
+    preferenceManager.setClientSupportedLanguages(List.of("java"));
+    return preferenceManager;
+  }
+
+  private GradleSourceSets getSourceSets(File projectDir) {
+    DefaultGradleSourceSet sourceSet = new DefaultGradleSourceSet();
+    sourceSet.setGradleVersion("8.0");
+    sourceSet.setProjectDir(projectDir);
+    sourceSet.setRootDir(rootDir.toFile());
+    sourceSet.setSourceSetName("main");
+    sourceSet.setSourceDirs(Collections.singleton(new File(projectDir, "src/main/java")));
+    sourceSet.setCompileClasspath(List.of(new File("lib.jar")));
+    return new DefaultGradleSourceSets(List.of(sourceSet));
+  }
+}
@@ -22,6 +22,7 @@ import ch.epfl.scala.bsp4j.TaskFinishParams;
 import ch.epfl.scala.bsp4j.TaskProgressParams;
 import ch.epfl.scala.bsp4j.TestReport;
 import ch.epfl.scala.bsp4j.TaskStartParams;
+import ch.epfl.scala.bsp4j.extended.BuildServerEx;
 import ch.epfl.scala.bsp4j.extended.TestFinishEx;
 import ch.epfl.scala.bsp4j.extended.TestStartEx;
 import com.microsoft.java.bs.core.Launcher;
@@ -56,7 +57,8 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 abstract class IntegrationTest {
 
-  protected interface TestServer extends BuildServer, JavaBuildServer, JvmBuildServer {
+  protected interface TestServer extends BuildServer, JavaBuildServer, JvmBuildServer,
+      BuildServerEx {
   }
 
   protected static class TestClient implements BuildClient {
@@ -259,11 +261,13 @@ abstract class IntegrationTest {
   @BeforeAll
   static void beforeClass() {
     System.setProperty("bsp.plugin.reloadworkspace.disabled", "true");
+    System.setProperty("bsp.gradle.modelcache.disabled", "true");
   }
 
   @AfterAll
   static void afterClass() {
     System.clearProperty("bsp.plugin.reloadworkspace.disabled");
+    System.clearProperty("bsp.gradle.modelcache.disabled");
   }
 
   protected static Path getTestPath(String projectDir) {
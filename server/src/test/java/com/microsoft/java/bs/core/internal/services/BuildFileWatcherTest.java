@@ -0,0 +1,147 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSet;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSets;
+
+class BuildFileWatcherTest {
+
+  // long enough for a polling watch service, such as the one on macOS, to notice a change
+  // on a slow machine.  The tests create the build files rather than modify them as a
+  // polling watch service can miss a modification within its timestamp resolution.
+  private static final long TIMEOUT_SECONDS = 60;
+
+  @TempDir
+  Path rootDir;
+
+  private Path projectDir;
+
+  private Path sourceDir;
+
+  private BlockingQueue<Optional<Set<File>>> changes;
+
+  private BlockingQueue<List<Path>> changedFiles;
+
+  private volatile String callbackThreadName;
+
+  private BuildFileWatcher watcher;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    projectDir = Files.createDirectory(rootDir.resolve("app"));
+    sourceDir = Files.createDirectories(projectDir.resolve("src/main/java"));
+    Files.createDirectories(rootDir.resolve("buildSrc/src/main/java"));
+    changes = new LinkedBlockingQueue<>();
+    changedFiles = new LinkedBlockingQueue<>();
+    watcher = startWatcher(false);
+  }
+
+  private BuildFileWatcher startWatcher(boolean watchSourceDirs) {
+    BuildFileWatcher newWatcher = new BuildFileWatcher(100, watchSourceDirs, projectDirs -> {
+      callbackThreadName = Thread.currentThread().getName();
+      changes.add(Optional.ofNullable(projectDirs));
+    }, changedFiles::add);
+    DefaultGradleSourceSet sourceSet = new DefaultGradleSourceSet();
+    sourceSet.setRootDir(rootDir.toFile());
+    sourceSet.setProjectDir(projectDir.toFile());
+    sourceSet.setSourceDirs(Set.of(sourceDir.toFile()));
+    newWatcher.watch(rootDir.toFile(), new DefaultGradleSourceSets(List.of(sourceSet)));
+    return newWatcher;
+  }
+
+  @AfterEach
+  void tearDown() {
+    watcher.close();
+  }
+
+  @Test
+  void testProjectBuildScriptChange() throws Exception {
+    Files.writeString(projectDir.resolve("build.gradle"), "apply plugin: 'java'");
+    assertEquals(Optional.of(Set.of(projectDir.toFile())),
+        changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(List.of(projectDir.resolve("build.gradle")), changedFiles.poll());
+  }
+
+  @Test
+  void testChangesPassedOnFromOwnThread() throws Exception {
+    Files.writeString(projectDir.resolve("build.gradle"), "apply plugin: 'java'");
+    changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertNotEquals("bsp-build-file-watcher", callbackThreadName);
+  }
+
+  @Test
+  void testSettingsChange() throws Exception {
+    Files.writeString(rootDir.resolve("settings.gradle"), "include 'app', 'lib'");
+    assertEquals(Optional.empty(), changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testBuildSrcChange() throws Exception {
+    Files.writeString(rootDir.resolve("buildSrc/src/main/java/Plugin.java"), "");
+    assertEquals(Optional.empty(), changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testSourceDirsNotWatchedByDefault() throws Exception {
+    Files.writeString(sourceDir.resolve("Foo.java"), "class Foo {}");
+    Files.writeString(projectDir.resolve("build.gradle"), "");
+    assertEquals(Optional.of(Set.of(projectDir.toFile())),
+        changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(List.of(projectDir.resolve("build.gradle")), changedFiles.poll());
+  }
+
+  @Test
+  void testSourceChangeNotReloaded() throws Exception {
+    watcher.close();
+    watcher = startWatcher(true);
+    Path sourceFile = sourceDir.resolve("Foo.java");
+    Files.writeString(sourceFile, "class Foo {}");
+    assertEquals(List.of(sourceFile), changedFiles.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    // a reload for the source change would arrive before the one for the build script.
+    Files.writeString(projectDir.resolve("build.gradle"), "");
+    assertEquals(Optional.of(Set.of(projectDir.toFile())),
+        changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testOtherFilesIgnored() throws Exception {
+    Files.writeString(projectDir.resolve("README.md"), "");
+    Files.createDirectories(rootDir.resolve("buildSrc/build/classes"));
+    // the build script change arrives after the other files, so if they weren't ignored
+    // they would be in the same or an earlier batch.
+    Files.writeString(projectDir.resolve("build.gradle"), "");
+    assertEquals(Optional.of(Set.of(projectDir.toFile())),
+        changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(List.of(projectDir.resolve("build.gradle")), changedFiles.poll());
+  }
+
+  @Test
+  void testClosed() throws Exception {
+    watcher.close();
+    watcher.watch(rootDir.toFile(), new DefaultGradleSourceSets(Collections.emptyList()));
+    Files.writeString(rootDir.resolve("settings.gradle"), "");
+    assertNull(changes.poll(1, TimeUnit.SECONDS));
+  }
+}
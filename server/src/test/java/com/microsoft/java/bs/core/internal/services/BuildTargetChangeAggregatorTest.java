@@ -0,0 +1,73 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.microsoft.java.bs.core.internal.log.BuildTargetChangeInfo;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSet;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+
+class BuildTargetChangeAggregatorTest {
+
+  private final BuildTargetIdentifier btId = new BuildTargetIdentifier("a");
+
+  @Test
+  void testMergesChanges() throws Exception {
+    BlockingQueue<List<BuildTargetChangeInfo>> sent = new LinkedBlockingQueue<>();
+    BuildTargetChangeAggregator aggregator = new BuildTargetChangeAggregator(200, sent::add);
+    DefaultGradleSourceSet sourceSet1 = getSourceSet("1");
+    DefaultGradleSourceSet sourceSet2 = getSourceSet("2");
+    aggregator.add(List.of(new BuildTargetChangeInfo(btId, null, sourceSet1)));
+    aggregator.add(List.of(new BuildTargetChangeInfo(btId, sourceSet1, sourceSet2)));
+
+    List<BuildTargetChangeInfo> changes = sent.poll(10, TimeUnit.SECONDS);
+    assertEquals(1, changes.size());
+    assertTrue(changes.get(0).isAdded());
+    assertSame(sourceSet2, changes.get(0).getNewSourceSet());
+    assertNull(sent.poll(500, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void testChangesCancelOut() throws Exception {
+    BlockingQueue<List<BuildTargetChangeInfo>> sent = new LinkedBlockingQueue<>();
+    BuildTargetChangeAggregator aggregator = new BuildTargetChangeAggregator(200, sent::add);
+    DefaultGradleSourceSet sourceSet = getSourceSet("1");
+    BuildTargetIdentifier otherId = new BuildTargetIdentifier("b");
+    aggregator.add(List.of(new BuildTargetChangeInfo(btId, null, sourceSet)));
+    aggregator.add(List.of(new BuildTargetChangeInfo(btId, sourceSet, null),
+        new BuildTargetChangeInfo(otherId, sourceSet, null)));
+
+    List<BuildTargetChangeInfo> changes = sent.poll(10, TimeUnit.SECONDS);
+    assertEquals(1, changes.size());
+    assertEquals(otherId, changes.get(0).getBtId());
+    assertTrue(changes.get(0).isRemoved());
+  }
+
+  @Test
+  void testNoQuietPeriod() {
+    BlockingQueue<List<BuildTargetChangeInfo>> sent = new LinkedBlockingQueue<>();
+    BuildTargetChangeAggregator aggregator = new BuildTargetChangeAggregator(0, sent::add);
+    aggregator.add(List.of(new BuildTargetChangeInfo(btId, null, getSourceSet("1"))));
+    assertEquals(1, sent.size());
+  }
+
+  private DefaultGradleSourceSet getSourceSet(String projectDir) {
+    DefaultGradleSourceSet sourceSet = new DefaultGradleSourceSet();
+    sourceSet.setProjectDir(new File(projectDir));
+    return sourceSet;
+  }
+}
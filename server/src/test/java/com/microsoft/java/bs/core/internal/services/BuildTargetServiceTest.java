@@ -5,9 +5,12 @@ package com.microsoft.java.bs.core.internal.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
@@ -20,6 +23,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 import ch.epfl.scala.bsp4j.DependencySourcesParams;
 import ch.epfl.scala.bsp4j.DependencySourcesResult;
@@ -31,8 +37,12 @@ import ch.epfl.scala.bsp4j.JvmCompileClasspathResult;
 import ch.epfl.scala.bsp4j.ScalaBuildTarget;
 import ch.epfl.scala.bsp4j.ScalacOptionsParams;
 import ch.epfl.scala.bsp4j.ScalacOptionsResult;
+import ch.epfl.scala.bsp4j.extended.InverseSourcesBatchParams;
+import ch.epfl.scala.bsp4j.extended.InverseSourcesBatchResult;
 import ch.epfl.scala.bsp4j.extended.KotlinBuildTarget;
 import com.microsoft.java.bs.gradle.model.ScalaExtension;
+import org.gradle.tooling.CancellationTokenSource;
+import org.gradle.tooling.GradleConnector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -41,6 +51,7 @@ import com.microsoft.java.bs.core.internal.managers.BuildTargetManager;
 import com.microsoft.java.bs.core.internal.managers.PreferenceManager;
 import com.microsoft.java.bs.core.internal.model.GradleBuildTarget;
 import com.microsoft.java.bs.core.internal.model.Preferences;
+import com.microsoft.java.bs.core.internal.utils.PathTrie;
 import com.microsoft.java.bs.gradle.model.Artifact;
 import com.microsoft.java.bs.gradle.model.GradleModuleDependency;
 import com.microsoft.java.bs.gradle.model.GradleSourceSet;
@@ -103,6 +114,32 @@ class BuildTargetServiceTest {
     assertInstanceOf(JvmBuildTarget.class, response.getTargets().get(0).getData());
   }
 
+  @Test
+  void testConcurrentRequestsShareInitialLoad() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(connector.getGradleSourceSets(any(), any(), any())).thenAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return null;
+    });
+    when(buildTargetManager.getAllGradleBuildTargets()).thenReturn(new ArrayList<>());
+
+    BuildTargetService buildTargetService = new BuildTargetService(buildTargetManager,
+        connector, preferenceManager);
+
+    CompletableFuture<WorkspaceBuildTargetsResult> first = CompletableFuture.supplyAsync(
+        () -> buildTargetService.getWorkspaceBuildTargets(null));
+    started.await();
+    CompletableFuture<WorkspaceBuildTargetsResult> second = CompletableFuture.supplyAsync(
+        () -> buildTargetService.getWorkspaceBuildTargets(null));
+    release.countDown();
+
+    assertTrue(first.get().getTargets().isEmpty());
+    assertTrue(second.get().getTargets().isEmpty());
+    verify(connector, times(1)).getGradleSourceSets(any(), any(), any());
+  }
+
   @Test
   void testScalaWorkspaceBuildTargets() {
     BuildTarget target = mock(BuildTarget.class);
@@ -149,11 +186,9 @@ class BuildTargetServiceTest {
 
   @Test
   void testGetBuildTargetSources() {
-    GradleBuildTarget gradleBuildTarget = mock(GradleBuildTarget.class);
-    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
-
     GradleSourceSet gradleSourceSet = mock(GradleSourceSet.class);
-    when(gradleBuildTarget.getSourceSet()).thenReturn(gradleSourceSet);
+    GradleBuildTarget gradleBuildTarget = getGradleBuildTarget(gradleSourceSet);
+    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
 
     File srcDir = new File(("srcDir"));
     Set<File> srcDirs = new HashSet<>();
@@ -183,11 +218,9 @@ class BuildTargetServiceTest {
 
   @Test
   void testGetBuildTargetResources() {
-    GradleBuildTarget gradleBuildTarget = mock(GradleBuildTarget.class);
-    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
-
     GradleSourceSet gradleSourceSet = mock(GradleSourceSet.class);
-    when(gradleBuildTarget.getSourceSet()).thenReturn(gradleSourceSet);
+    GradleBuildTarget gradleBuildTarget = getGradleBuildTarget(gradleSourceSet);
+    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
 
     File resourceDir = new File(("resourceDir"));
     Set<File> resourceDirs = new HashSet<>();
@@ -208,11 +241,9 @@ class BuildTargetServiceTest {
 
   @Test
   void testGetBuildTargetOutputPaths() {
-    GradleBuildTarget gradleBuildTarget = mock(GradleBuildTarget.class);
-    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
-
     GradleSourceSet gradleSourceSet = mock(GradleSourceSet.class);
-    when(gradleBuildTarget.getSourceSet()).thenReturn(gradleSourceSet);
+    GradleBuildTarget gradleBuildTarget = getGradleBuildTarget(gradleSourceSet);
+    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
 
     File sourceOutputDir = new File(("sourceOutputDir"));
     Set<File> sourceOutputDirs = new HashSet<>();
@@ -233,11 +264,9 @@ class BuildTargetServiceTest {
 
   @Test
   void testGetBuildTargetDependencySources() {
-    GradleBuildTarget gradleBuildTarget = mock(GradleBuildTarget.class);
-    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
-
     GradleSourceSet gradleSourceSet = mock(GradleSourceSet.class);
-    when(gradleBuildTarget.getSourceSet()).thenReturn(gradleSourceSet);
+    GradleBuildTarget gradleBuildTarget = getGradleBuildTarget(gradleSourceSet);
+    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
 
     Set<GradleModuleDependency> moduleDependencies = getGradleModuleDependencies();
     when(gradleSourceSet.getModuleDependencies()).thenReturn(moduleDependencies);
@@ -256,10 +285,10 @@ class BuildTargetServiceTest {
   void testGetBuildTargetInverseSources() {
     String tmpdir = System.getProperty("java.io.tmpdir");
     Path tmpPath = Path.of(tmpdir);
-    Map<Path, BuildTargetIdentifier> sourceDirsMap = new HashMap<>();
     BuildTargetIdentifier btId = new BuildTargetIdentifier(tmpPath.toString());
-    sourceDirsMap.put(tmpPath, btId);
-    when(buildTargetManager.getSourceDirsMap()).thenReturn(sourceDirsMap);
+    PathTrie<BuildTargetIdentifier> sourceDirsTrie = PathTrie.<BuildTargetIdentifier>builder()
+        .put(tmpPath, btId).build();
+    when(buildTargetManager.getSourceDirsTrie()).thenReturn(sourceDirsTrie);
 
     BuildTargetService buildTargetService = new BuildTargetService(buildTargetManager,
             connector, preferenceManager);
@@ -274,12 +303,57 @@ class BuildTargetServiceTest {
   }
 
   @Test
-  void testGetBuildTargetDependencyModules() {
-    GradleBuildTarget gradleBuildTarget = mock(GradleBuildTarget.class);
-    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
+  void testGetBuildTargetInverseSourcesBatch() {
+    Path tmpPath = Path.of(System.getProperty("java.io.tmpdir"));
+    BuildTargetIdentifier mainId = new BuildTargetIdentifier("main");
+    BuildTargetIdentifier testId = new BuildTargetIdentifier("test");
+    PathTrie<BuildTargetIdentifier> sourceDirsTrie = PathTrie.<BuildTargetIdentifier>builder()
+        .put(tmpPath.resolve("main"), mainId)
+        .put(tmpPath.resolve("test"), testId)
+        .build();
+    when(buildTargetManager.getSourceDirsTrie()).thenReturn(sourceDirsTrie);
 
+    BuildTargetService buildTargetService = new BuildTargetService(buildTargetManager,
+            connector, preferenceManager);
+    List<TextDocumentIdentifier> docIds = new ArrayList<>();
+    for (String doc : Arrays.asList("main/A.java", "test/B.java", "other/C.java")) {
+      docIds.add(new TextDocumentIdentifier(tmpPath.resolve(doc).toUri().toString()));
+    }
+    docIds.add(new TextDocumentIdentifier("untitled:Untitled-1"));
+    docIds.add(new TextDocumentIdentifier("jdt://contents/rt.jar/java.lang/String.class"));
+    InverseSourcesBatchResult res = buildTargetService.getBuildTargetInverseSourcesBatch(
+            new InverseSourcesBatchParams(docIds), null);
+    assertEquals(5, res.getItems().size());
+    assertEquals(docIds.get(0), res.getItems().get(0).getTextDocument());
+    assertEquals(List.of(mainId), res.getItems().get(0).getTargets());
+    assertEquals(List.of(testId), res.getItems().get(1).getTargets());
+    assertTrue(res.getItems().get(2).getTargets().isEmpty());
+    assertEquals(docIds.get(3), res.getItems().get(3).getTextDocument());
+    assertTrue(res.getItems().get(3).getTargets().isEmpty());
+    assertTrue(res.getItems().get(4).getTargets().isEmpty());
+  }
+
+  @Test
+  void testGetBuildTargetInverseSourcesBatchCancelled() {
+    when(buildTargetManager.getSourceDirsTrie())
+        .thenReturn(PathTrie.<BuildTargetIdentifier>builder().build());
+    CancellationTokenSource tokenSource = GradleConnector.newCancellationTokenSource();
+    tokenSource.cancel();
+
+    BuildTargetService buildTargetService = new BuildTargetService(buildTargetManager,
+            connector, preferenceManager);
+    List<TextDocumentIdentifier> docIds = List.of(new TextDocumentIdentifier(
+        Path.of(System.getProperty("java.io.tmpdir"), "A.java").toUri().toString()));
+    assertThrows(CancellationException.class, () -> buildTargetService
+        .getBuildTargetInverseSourcesBatch(new InverseSourcesBatchParams(docIds),
+            tokenSource.token()));
+  }
+
+  @Test
+  void testGetBuildTargetDependencyModules() {
     GradleSourceSet gradleSourceSet = mock(GradleSourceSet.class);
-    when(gradleBuildTarget.getSourceSet()).thenReturn(gradleSourceSet);
+    GradleBuildTarget gradleBuildTarget = getGradleBuildTarget(gradleSourceSet);
+    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
 
     Set<GradleModuleDependency> moduleDependencies = getGradleModuleDependencies();
     when(gradleSourceSet.getModuleDependencies()).thenReturn(moduleDependencies);
@@ -342,13 +416,11 @@ class BuildTargetServiceTest {
 
   @Test
   void testGetJavacOptionsAndJvmClasspath() {
-    GradleBuildTarget gradleBuildTarget = mock(GradleBuildTarget.class);
-    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
-
     List<File> classpath = new ArrayList<>();
     classpath.add(new File(System.getProperty("java.io.tmpdir")));
     GradleSourceSet gradleSourceSet = mock(GradleSourceSet.class);
-    when(gradleBuildTarget.getSourceSet()).thenReturn(gradleSourceSet);
+    GradleBuildTarget gradleBuildTarget = getGradleBuildTarget(gradleSourceSet);
+    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
     when(gradleSourceSet.getCompileClasspath()).thenReturn(classpath);
 
     JavaExtension mockedJavaExtension = mock(JavaExtension.class);
@@ -376,15 +448,15 @@ class BuildTargetServiceTest {
   
     assertEquals(1, classpaths.getItems().size());
     assertEquals(1, classpaths.getItems().get(0).getClasspath().size());
+    // the classpath uris are only created once per build target.
+    verify(gradleSourceSet, times(1)).getCompileClasspath();
   }
 
   @Test
   void testGetScalacOptions() {
-    GradleBuildTarget gradleBuildTarget = mock(GradleBuildTarget.class);
-    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
-
     GradleSourceSet gradleSourceSet = mock(GradleSourceSet.class);
-    when(gradleBuildTarget.getSourceSet()).thenReturn(gradleSourceSet);
+    GradleBuildTarget gradleBuildTarget = getGradleBuildTarget(gradleSourceSet);
+    when(buildTargetManager.getGradleBuildTarget(any())).thenReturn(gradleBuildTarget);
 
     List<String> compilerArgs = new ArrayList<>();
     compilerArgs.add("-deprecation");
@@ -407,4 +479,10 @@ class BuildTargetServiceTest {
     assertEquals(1, scalacOptions.getItems().size());
     assertEquals(4, scalacOptions.getItems().get(0).getOptions().size());
   }
+
+  private GradleBuildTarget getGradleBuildTarget(GradleSourceSet gradleSourceSet) {
+    BuildTarget target = mock(BuildTarget.class);
+    when(target.getId()).thenReturn(new BuildTargetIdentifier("test"));
+    return new GradleBuildTarget(target, gradleSourceSet);
+  }
 }
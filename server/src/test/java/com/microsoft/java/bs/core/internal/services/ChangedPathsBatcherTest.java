@@ -0,0 +1,45 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ChangedPathsBatcherTest {
+
+  private final Path path1 = Path.of("a", "A.java").toAbsolutePath();
+
+  private final Path path2 = Path.of("b", "B.java").toAbsolutePath();
+
+  @Test
+  void testBatchesPaths() throws Exception {
+    BlockingQueue<List<Path>> sent = new LinkedBlockingQueue<>();
+    ChangedPathsBatcher batcher = new ChangedPathsBatcher(200, sent::add);
+    batcher.add(List.of(path1));
+    batcher.add(List.of(path2, path1));
+
+    assertEquals(List.of(path1, path2), sent.poll(10, TimeUnit.SECONDS));
+    assertNull(sent.poll(500, TimeUnit.MILLISECONDS));
+
+    batcher.add(List.of(path2));
+    assertEquals(List.of(path2), sent.poll(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testNoWindow() {
+    BlockingQueue<List<Path>> sent = new LinkedBlockingQueue<>();
+    ChangedPathsBatcher batcher = new ChangedPathsBatcher(0, sent::add);
+    batcher.add(List.of(path1));
+    batcher.add(List.of());
+    assertEquals(1, sent.size());
+  }
+}
@@ -0,0 +1,115 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.tooling.CancellationTokenSource;
+import org.gradle.tooling.GradleConnector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import ch.epfl.scala.bsp4j.StatusCode;
+
+class CompileCoalescerTest {
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void testRequestsInWindowShareBuild() throws Exception {
+    List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    CompileCoalescer coalescer = new CompileCoalescer(500, (requests, cancelToken) -> {
+      batchSizes.add(requests.size());
+      return allWith(requests, StatusCode.OK);
+    });
+    CompletableFuture<StatusCode> first = CompletableFuture.supplyAsync(() ->
+        coalescer.compile(List.of(new BuildTargetIdentifier("a")), null, null), executor);
+    CompletableFuture<StatusCode> second = CompletableFuture.supplyAsync(() ->
+        coalescer.compile(List.of(new BuildTargetIdentifier("b")), null, null), executor);
+
+    assertEquals(StatusCode.OK, first.get(10, TimeUnit.SECONDS));
+    assertEquals(StatusCode.OK, second.get(10, TimeUnit.SECONDS));
+    assertEquals(List.of(2), batchSizes);
+  }
+
+  @Test
+  void testRequestsInBatchGetTheirOwnStatus() throws Exception {
+    BuildTargetIdentifier failing = new BuildTargetIdentifier("a");
+    CompileCoalescer coalescer = new CompileCoalescer(500, (requests, cancelToken) -> {
+      Map<CompileCoalescer.Request, StatusCode> codes = new HashMap<>();
+      for (CompileCoalescer.Request request : requests) {
+        codes.put(request, request.getTargets().contains(failing)
+            ? StatusCode.ERROR : StatusCode.OK);
+      }
+      return codes;
+    });
+    CompletableFuture<StatusCode> first = CompletableFuture.supplyAsync(() ->
+        coalescer.compile(List.of(failing), null, null), executor);
+    CompletableFuture<StatusCode> second = CompletableFuture.supplyAsync(() ->
+        coalescer.compile(List.of(new BuildTargetIdentifier("b")), null, null), executor);
+
+    assertEquals(StatusCode.ERROR, first.get(10, TimeUnit.SECONDS));
+    assertEquals(StatusCode.OK, second.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testCancelledRequestLeavesBatch() throws Exception {
+    List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    CompileCoalescer coalescer = new CompileCoalescer(500, (requests, cancelToken) -> {
+      batchSizes.add(requests.size());
+      return allWith(requests, StatusCode.OK);
+    });
+    CancellationTokenSource tokenSource = GradleConnector.newCancellationTokenSource();
+    CompletableFuture<StatusCode> cancelled = CompletableFuture.supplyAsync(() ->
+        coalescer.compile(List.of(new BuildTargetIdentifier("a")), null, tokenSource.token()),
+        executor);
+    CompletableFuture<StatusCode> other = CompletableFuture.supplyAsync(() ->
+        coalescer.compile(List.of(new BuildTargetIdentifier("b")), null, null), executor);
+    tokenSource.cancel();
+
+    assertEquals(StatusCode.CANCELLED, cancelled.get(10, TimeUnit.SECONDS));
+    assertEquals(StatusCode.OK, other.get(10, TimeUnit.SECONDS));
+    assertEquals(List.of(1), batchSizes);
+  }
+
+  @Test
+  void testNoWindow() {
+    List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    CompileCoalescer coalescer = new CompileCoalescer(0, (requests, cancelToken) -> {
+      batchSizes.add(requests.size());
+      return allWith(requests, StatusCode.ERROR);
+    });
+    assertEquals(StatusCode.ERROR,
+        coalescer.compile(List.of(new BuildTargetIdentifier("a")), null, null));
+    assertEquals(List.of(1), batchSizes);
+  }
+
+  private static Map<CompileCoalescer.Request, StatusCode> allWith(
+      List<CompileCoalescer.Request> requests, StatusCode code) {
+    Map<CompileCoalescer.Request, StatusCode> codes = new HashMap<>();
+    requests.forEach(request -> codes.put(request, code));
+    return codes;
+  }
+}
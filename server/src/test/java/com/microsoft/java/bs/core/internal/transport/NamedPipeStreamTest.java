@@ -0,0 +1,75 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.transport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisabledOnOs(OS.WINDOWS)
+class NamedPipeStreamTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testBulkTransfer() throws Exception {
+    byte[] data = new byte[5 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(data);
+    Path socketPath = tempDir.resolve("bsp.sock");
+    try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      server.bind(UnixDomainSocketAddress.of(socketPath));
+      // echo everything the client sends back to it.
+      CompletableFuture.runAsync(() -> {
+        try (SocketChannel channel = server.accept()) {
+          ByteBuffer buffer = ByteBuffer.allocate(8192);
+          while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+              channel.write(buffer);
+            }
+            buffer.clear();
+          }
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+
+      NamedPipeStream pipeStream = new NamedPipeStream(socketPath.toString());
+      OutputStream output = pipeStream.getOutputStream();
+      InputStream input = pipeStream.getInputStream();
+      CompletableFuture<Void> send = CompletableFuture.runAsync(() -> {
+        try {
+          output.write(data, 0, 1);
+          output.write(data[1]);
+          output.write(data, 2, data.length - 2);
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+
+      byte[] received = new byte[data.length];
+      new DataInputStream(input).readFully(received);
+      send.get();
+      assertArrayEquals(data, received);
+      assertEquals(0, input.available());
+    }
+  }
+}
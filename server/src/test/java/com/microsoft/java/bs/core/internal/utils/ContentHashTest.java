@@ -0,0 +1,98 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.microsoft.java.bs.gradle.model.LanguageExtension;
+import com.microsoft.java.bs.gradle.model.SupportedLanguages;
+import com.microsoft.java.bs.gradle.model.impl.DefaultGradleSourceSet;
+import com.microsoft.java.bs.gradle.model.impl.DefaultJavaExtension;
+
+class ContentHashTest {
+
+  @Test
+  void testEqualSourceSets() {
+    DefaultGradleSourceSet sourceSet1 = getTestGradleSourceSet(List.of("a", "b", "c"));
+    DefaultGradleSourceSet sourceSet2 = getTestGradleSourceSet(List.of("c", "a", "b"));
+    assertEquals(sourceSet1, sourceSet2);
+    assertEquals(ContentHash.of(sourceSet1), ContentHash.of(sourceSet2));
+    assertEquals(ContentHash.of(sourceSet1),
+        ContentHash.of(new DefaultGradleSourceSet(sourceSet1)));
+  }
+
+  @Test
+  void testChangedSourceSets() {
+    DefaultGradleSourceSet sourceSet1 = getTestGradleSourceSet(List.of("a", "b"));
+    DefaultGradleSourceSet sourceSet2 = getTestGradleSourceSet(List.of("a", "b"));
+    sourceSet2.setCompileClasspath(List.of(new File("b.jar"), new File("a.jar")));
+    assertNotEquals(ContentHash.of(sourceSet1), ContentHash.of(sourceSet2));
+
+    DefaultGradleSourceSet sourceSet3 = getTestGradleSourceSet(List.of("a", "b"));
+    ((DefaultJavaExtension) sourceSet3.getExtensions()
+        .get(SupportedLanguages.JAVA.getBspName())).setSourceCompatibility("9");
+    assertNotEquals(ContentHash.of(sourceSet1), ContentHash.of(sourceSet3));
+  }
+
+  @Test
+  void testCollections() {
+    assertEquals(ContentHash.of(Set.of("a", "b")), ContentHash.of(new LinkedHashSet<>(
+        List.of("b", "a"))));
+    assertEquals(ContentHash.of(List.of("a", "b")), ContentHash.of(new ArrayList<>(
+        List.of("a", "b"))));
+    assertNotEquals(ContentHash.of(List.of("a", "b")), ContentHash.of(List.of("b", "a")));
+    assertNotEquals(ContentHash.of(List.of("a", "b")), ContentHash.of(Set.of("a", "b")));
+    assertEquals(ContentHash.of(Map.of("a", 1, "b", 2)),
+        ContentHash.of(new TreeMap<>(Map.of("b", 2, "a", 1))));
+    assertNotEquals(ContentHash.of(Map.of("a", 1, "b", 2)),
+        ContentHash.of(Map.of("a", 2, "b", 1)));
+    assertNotEquals(ContentHash.of(List.of("ab")), ContentHash.of(List.of("a", "b")));
+  }
+
+  private DefaultGradleSourceSet getTestGradleSourceSet(List<String> sourceDirs) {
+    DefaultGradleSourceSet sourceSet = new DefaultGradleSourceSet();
+    sourceSet.setGradleVersion("8.0");
+    sourceSet.setProjectDir(new File("test"));
+    sourceSet.setRootDir(new File("test"));
+    sourceSet.setSourceSetName("main");
+    Set<File> dirs = new LinkedHashSet<>();
+    for (String dir : sourceDirs) {
+      dirs.add(new File(dir));
+    }
+    sourceSet.setSourceDirs(dirs);
+    sourceSet.setTaskNames(Collections.emptySet());
+    sourceSet.setGeneratedSourceDirs(Collections.emptySet());
+    sourceSet.setSourceOutputDirs(Collections.emptySet());
+    sourceSet.setResourceDirs(Collections.emptySet());
+    sourceSet.setResourceOutputDirs(Collections.emptySet());
+    sourceSet.setArchiveOutputFiles(Collections.emptyMap());
+    sourceSet.setCompileClasspath(List.of(new File("a.jar"), new File("b.jar")));
+    sourceSet.setRuntimeClasspath(Collections.emptyList());
+    sourceSet.setModuleDependencies(Collections.emptySet());
+    sourceSet.setBuildTargetDependencies(Collections.emptySet());
+    sourceSet.setTestTasks(Collections.emptySet());
+    sourceSet.setRunTasks(Collections.emptySet());
+    DefaultJavaExtension javaExtension = new DefaultJavaExtension();
+    javaExtension.setJavaVersion("17");
+    javaExtension.setSourceCompatibility("17");
+    javaExtension.setTargetCompatibility("17");
+    Map<String, LanguageExtension> extensions = new HashMap<>();
+    extensions.put(SupportedLanguages.JAVA.getBspName(), javaExtension);
+    sourceSet.setExtensions(extensions);
+    return sourceSet;
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+class PathTrieTest {
+
+  private static final Path ROOT = Path.of(System.getProperty("java.io.tmpdir"));
+
+  @Test
+  void testFindsContainingDirs() {
+    PathTrie<String> trie = PathTrie.<String>builder()
+        .put(ROOT.resolve("a/src/main/java"), "main")
+        .put(ROOT.resolve("a/src/main/resources"), "main")
+        .put(ROOT.resolve("a/src/test/java"), "test")
+        .build();
+
+    assertEquals(List.of("main"),
+        trie.getValues(ROOT.resolve("a/src/main/java/foo/Bar.java")));
+    assertEquals(List.of("main"), trie.getValues(ROOT.resolve("a/src/main/resources")));
+    assertEquals(List.of("test"), trie.getValues(ROOT.resolve("a/src/test/java/Foo.java")));
+    assertTrue(trie.getValues(ROOT.resolve("a/src/main")).isEmpty());
+    assertTrue(trie.getValues(ROOT.resolve("b/src/main/java/Foo.java")).isEmpty());
+  }
+
+  @Test
+  void testMatchesWholeSegments() {
+    PathTrie<String> trie = PathTrie.<String>builder()
+        .put(ROOT.resolve("a/src"), "src")
+        .build();
+
+    assertTrue(trie.getValues(ROOT.resolve("a/src2/Foo.java")).isEmpty());
+  }
+
+  @Test
+  void testNestedDirsOutermostFirst() {
+    PathTrie<String> trie = PathTrie.<String>builder()
+        .put(ROOT.resolve("a/build/generated"), "inner")
+        .put(ROOT.resolve("a"), "outer")
+        .put(ROOT.resolve("a/build"), "outer")
+        .build();
+
+    assertEquals(List.of("outer", "inner"),
+        trie.getValues(ROOT.resolve("a/build/generated/Foo.java")));
+  }
+
+  @Test
+  @EnabledOnOs(OS.WINDOWS)
+  void testIgnoresDriveLetterCase() {
+    PathTrie<String> trie = PathTrie.<String>builder()
+        .put(Path.of("C:\\work\\a\\src\\main\\java"), "main")
+        .build();
+
+    assertEquals(List.of("main"),
+        trie.getValues(Path.of("c:\\work\\a\\src\\main\\java\\Foo.java")));
+  }
+
+  @Test
+  void testEmpty() {
+    assertTrue(PathTrie.empty().getValues(ROOT.resolve("Foo.java")).isEmpty());
+  }
+
+  @Test
+  void testLargeWorkspace() {
+    PathTrie.Builder<Integer> builder = PathTrie.builder();
+    int projects = 2500;
+    for (int i = 0; i < projects; i++) {
+      Path projectDir = ROOT.resolve("workspace/project" + i);
+      builder.put(projectDir.resolve("src/main/java"), i);
+      builder.put(projectDir.resolve("src/main/resources"), i);
+      builder.put(projectDir.resolve("src/test/java"), -i - 1);
+      builder.put(projectDir.resolve("build/generated/sources/annotationProcessor"), i);
+    }
+    PathTrie<Integer> trie = builder.build();
+
+    for (int i = 0; i < projects; i++) {
+      Path projectDir = ROOT.resolve("workspace/project" + i);
+      assertEquals(List.of(i),
+          trie.getValues(projectDir.resolve("src/main/java/com/example/Foo.java")));
+      assertEquals(List.of(-i - 1),
+          trie.getValues(projectDir.resolve("src/test/java/com/example/FooTest.java")));
+    }
+  }
+}
@@ -0,0 +1,38 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.java.bs.core.internal.utils.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.microsoft.java.bs.core.internal.utils.concurrent.RequestExecutor.Lane;
+
+class RequestExecutorTest {
+
+  @Test
+  void testQueryNotBlockedByBuilds() throws Exception {
+    RequestExecutor requestExecutor = new RequestExecutor();
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      // fill the build lane.
+      for (int i = 0; i < 16; i++) {
+        requestExecutor.getExecutor(Lane.BUILD).submit(() -> {
+          release.await();
+          return null;
+        });
+      }
+      String result = CompletableFuture.supplyAsync(() -> "sources",
+          requestExecutor.getExecutor(Lane.QUERY)).get(10, TimeUnit.SECONDS);
+      assertEquals("sources", result);
+    } finally {
+      release.countDown();
+      requestExecutor.shutdown();
+    }
+  }
+}